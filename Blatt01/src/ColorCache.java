@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class ColorCache remembers the colors of recently classified light
+ * mixtures, so a mixture that comes up again is not sent through the network
+ * again.
+ *
+ * Light mixtures are compared as multisets of whole nm: the photo receptors
+ * truncate every light wave to an int anyway (@see
+ * Photoreceptor#integrateSignal(double[])) and average over the waves, so
+ * neither the fractions nor the order of the waves change the color. When the
+ * cache is full, the least recently used mixture is evicted.
+ *
+ * The cache may be used by many threads at once.
+ */
+public class ColorCache {
+	/** the network that classifies the mixtures the cache does not know */
+	private final CompiledNetwork network;
+	/** maximum number of cached mixtures */
+	private final int capacity;
+	/** cached colors in order of their last use */
+	private final LinkedHashMap<Key, String> colors;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * A light mixture as sorted array of whole nm
+	 */
+	private static final class Key {
+		private final int[] waves;
+		private final int hash;
+
+		Key(double[] input) {
+			this.waves = new int[input.length];
+			for (int i = 0; i < input.length; i++) {
+				this.waves[i] = (int) input[i];
+			}
+			Arrays.sort(this.waves);
+			this.hash = Arrays.hashCode(this.waves);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && Arrays.equals(this.waves, ((Key) o).waves);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+	/**
+	 * Sets up an empty cache.
+	 *
+	 * @param network
+	 *            the network that classifies the mixtures
+	 * @param capacity
+	 *            maximum number of cached mixtures
+	 * @throws RuntimeException
+	 *             if the capacity is not positive
+	 */
+	public ColorCache(CompiledNetwork network, int capacity) {
+		if (capacity < 1)
+			throw new RuntimeException("The cache needs space for at least one mixture.");
+		this.network = network;
+		this.capacity = capacity;
+		this.colors = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+				if (size() <= ColorCache.this.capacity)
+					return false;
+				ColorCache.this.evictions++;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Classifies a light mixture like {@link CompiledNetwork#classify(double[])},
+	 * looking it up in the cache first.
+	 *
+	 * @param input
+	 *            light waves in nm
+	 * @return color of the mixed light signals as a String
+	 */
+	public String classify(double[] input) {
+		Key key = new Key(input);
+		synchronized (this) {
+			String color = this.colors.get(key);
+			if (color != null) {
+				this.hits++;
+				return color;
+			}
+			this.misses++;
+		}
+		// classify the whole nm in sorted order, so every mixture of the key gets the same color
+		double[] waves = new double[key.waves.length];
+		for (int i = 0; i < waves.length; i++) {
+			waves[i] = key.waves[i];
+		}
+		String color = this.network.classify(waves);
+		synchronized (this) {
+			this.colors.put(key, color);
+		}
+		return color;
+	}
+
+	/**
+	 * Gets the number of lookups answered from the cache
+	 *
+	 * @return #Hits
+	 */
+	public synchronized long hits() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets the number of lookups that had to ask the network
+	 *
+	 * @return #Misses
+	 */
+	public synchronized long misses() {
+		return this.misses;
+	}
+
+	/**
+	 * Gets the number of mixtures evicted because the cache was full
+	 *
+	 * @return #Evictions
+	 */
+	public synchronized long evictions() {
+		return this.evictions;
+	}
+
+	/**
+	 * Gets the share of lookups answered from the cache
+	 *
+	 * @return hits / (hits + misses), or 0 before the first lookup
+	 */
+	public synchronized double hitRate() {
+		long lookups = this.hits + this.misses;
+		return lookups == 0 ? 0 : (double) this.hits / lookups;
+	}
+
+	/**
+	 * Gets the number of cached mixtures
+	 *
+	 * @return #Mixtures in the cache
+	 */
+	public synchronized int size() {
+		return this.colors.size();
+	}
+}
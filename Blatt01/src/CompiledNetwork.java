@@ -0,0 +1,427 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The class CompiledNetwork is a flattened, array-backed copy of a wired
+ * {@link Network}.
+ *
+ * The neurons and synapses are stored in compressed sparse row (CSR) form: the
+ * outgoing synapses of neuron n are the entries fanoutStart[n] to
+ * fanoutStart[n + 1] - 1 of fanoutTarget. Signals are propagated through these
+ * arrays instead of through the {@link Neuron} objects, so evaluating a light
+ * sample needs no virtual calls and no new arrays.
+ *
+ * A compiled network is a snapshot: synapses added to the {@link Network}
+ * afterwards are not seen. Every evaluation starts with empty cortical neurons,
+ * i.e. it gives the same result as {@link Network#signalprocessing(double[])}
+ * on a network whose cortical neurons have just been reset. Each interneuron
+ * divides the signal it receives by its number of outgoing synapses and passes
+ * the part on to every target.
+ *
+ * The arrays describing the network are never changed after construction, so
+ * one compiled network can be shared by any number of threads without locks.
+ * The sums of an evaluation are kept in an accumulator that belongs to the
+ * caller (@see #newAccumulator()) or to the calling thread.
+ */
+public class CompiledNetwork {
+	/** kind of a cortical neuron (photo receptors use their color channel 0, 1, 2) */
+	static final int CORTICAL = 3;
+	/** kind of an interneuron */
+	static final int INTER = 4;
+	/** batches up to this size are classified by one thread */
+	static final int BATCH_THRESHOLD = 1024;
+
+	/** kind of each neuron: color channel of a photo receptor, CORTICAL or INTER */
+	private final int[] kind;
+	/** number of neurons */
+	private final int size;
+	/** number of cortical neurons */
+	private final int cortical;
+	/** indices of the photo receptors, in ascending order */
+	private final int[] receptorIndex;
+	/** color channel (0 blue, 1 green, 2 red) of each photo receptor */
+	private final int[] receptorChannel;
+	/** #Photoreceptors per color channel */
+	private final double[] colorreceptors = new double[3];
+	/** slot of each neuron in the cortical accumulator, or -1 */
+	private final int[] corticalSlot;
+	/** first outgoing synapse of each neuron (length size + 1) */
+	private final int[] fanoutStart;
+	/** postsynaptic neuron of each synapse */
+	private final int[] fanoutTarget;
+	/** scale factor of each neuron: the number of parts an interneuron divides its signal into */
+	private final double[] scale;
+
+	/** how the excitation of the photo receptors is computed */
+	private final Photoreceptor.ExcitationMode mode;
+	/** synapse transmissions per evaluation, only counted if metrics are enabled */
+	private final long transmissions;
+
+	/**
+	 * accumulator of each thread using {@link #signalprocessing(double[], double[])}
+	 * or {@link #classify(double[])}
+	 */
+	private final ThreadLocal<double[]> accumulator = ThreadLocal.withInitial(this::newAccumulator);
+
+	/**
+	 * Builds the compiled network from a flat description of the neurons.
+	 *
+	 * @param kind
+	 *            per neuron: the color channel (0, 1, 2) of a photo receptor,
+	 *            {@link #CORTICAL} or {@link #INTER}
+	 * @param fanoutStart
+	 *            first outgoing synapse of each neuron (length kind.length + 1)
+	 * @param fanoutTarget
+	 *            postsynaptic neuron of each synapse
+	 * @param mode
+	 *            excitation mode of the photo receptors
+	 * @throws RuntimeException
+	 *             if a synapse ends in a photo receptor or starts in a cortical
+	 *             neuron, or if a photo receptor has more than one synapse
+	 */
+	CompiledNetwork(int[] kind, int[] fanoutStart, int[] fanoutTarget, Photoreceptor.ExcitationMode mode) {
+		this.kind = kind;
+		this.size = kind.length;
+		this.mode = mode;
+		this.fanoutStart = fanoutStart;
+		this.fanoutTarget = fanoutTarget;
+		this.corticalSlot = new int[size];
+		this.scale = new double[size];
+		int receptors = 0;
+		int slots = 0;
+		for (int n = 0; n < size; n++) {
+			int fanout = fanoutStart[n + 1] - fanoutStart[n];
+			this.scale[n] = fanout;
+			this.corticalSlot[n] = -1;
+			if (kind[n] == CORTICAL) {
+				if (fanout != 0)
+					throw new RuntimeException("Cortical neurons do not have outgoing synapses.");
+				this.corticalSlot[n] = slots++;
+			} else if (kind[n] < CORTICAL) {
+				if (fanout > 1)
+					throw new RuntimeException("Photo receptors have at most one outgoing synapse.");
+				this.colorreceptors[kind[n]]++;
+				receptors++;
+			}
+		}
+		for (int target : fanoutTarget) {
+			if (kind[target] < CORTICAL)
+				throw new RuntimeException("Photo receptors do not receive synaptic input.");
+		}
+		this.cortical = slots;
+		this.receptorIndex = new int[receptors];
+		this.receptorChannel = new int[receptors];
+		for (int n = 0, r = 0; n < size; n++) {
+			if (kind[n] < CORTICAL) {
+				this.receptorIndex[r] = n;
+				this.receptorChannel[r] = kind[n];
+				r++;
+			}
+		}
+		this.transmissions = NetworkMetrics.ENABLED ? countTransmissions() : 0;
+	}
+
+	/**
+	 * Counts the synapse transmissions of one evaluation. They do not depend on
+	 * the light waves, only on the wiring.
+	 *
+	 * @return #Transmissions per evaluation
+	 */
+	private long countTransmissions() {
+		// transmissions caused by a signal arriving at each neuron, -1 if not yet known
+		long[] caused = new long[this.size];
+		Arrays.fill(caused, -1);
+		long count = 0;
+		for (int n : this.receptorIndex) {
+			if (this.fanoutStart[n] < this.fanoutStart[n + 1])
+				count += 1 + countTransmissions(this.fanoutTarget[this.fanoutStart[n]], caused);
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the synapse transmissions caused by a signal arriving at a neuron.
+	 *
+	 * @param n
+	 *            receiving neuron
+	 * @param caused
+	 *            known counts per neuron, -1 if not yet known
+	 * @return #Transmissions
+	 */
+	private long countTransmissions(int n, long[] caused) {
+		if (caused[n] < 0) {
+			long count = 0;
+			if (this.corticalSlot[n] < 0) {
+				for (int e = this.fanoutStart[n]; e < this.fanoutStart[n + 1]; e++) {
+					count += 1 + countTransmissions(this.fanoutTarget[e], caused);
+				}
+			}
+			caused[n] = count;
+		}
+		return caused[n];
+	}
+
+	/**
+	 * Gets the number of neurons
+	 *
+	 * @return #Neurons
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Gets the number of synapses
+	 *
+	 * @return #Synapses
+	 */
+	public int synapses() {
+		return this.fanoutTarget.length;
+	}
+
+	/**
+	 * Processes the light waves like {@link Network#signalprocessing(double[])},
+	 * using an accumulator owned by the calling thread.
+	 *
+	 * @param input
+	 *            light waves in nm
+	 * @param neuralSignal
+	 *            array of length 3 the neural signal is written to
+	 * @return neuralSignal
+	 */
+	public double[] signalprocessing(double[] input, double[] neuralSignal) {
+		return signalprocessing(input, this.accumulator.get(), neuralSignal);
+	}
+
+	/**
+	 * Classifies a light mixture like {@link Network#colors(double[])} after
+	 * {@link Network#signalprocessing(double[])}. May be called by many threads
+	 * at once; the working memory is the accumulator of the calling thread,
+	 * which stays allocated as long as the thread lives. Short-lived threads
+	 * should use {@link #classify(double[], double[])} instead.
+	 *
+	 * @param input
+	 *            light waves in nm
+	 * @return color of the mixed light signals as a String
+	 */
+	public String classify(double[] input) {
+		return classify(input, this.accumulator.get());
+	}
+
+	/**
+	 * Classifies a light mixture, using the given accumulator as working memory.
+	 *
+	 * @param input
+	 *            light waves in nm
+	 * @param acc
+	 *            accumulator (@see #newAccumulator())
+	 * @return color of the mixed light signals as a String
+	 */
+	public String classify(double[] input, double[] acc) {
+		double[] neuralSignal = new double[3];
+		return Network.classify(signalprocessing(input, acc, neuralSignal));
+	}
+
+	/**
+	 * Allocates the working memory of one evaluation: the averaged excitation
+	 * per color channel followed by the summed signal of each cortical neuron.
+	 * Callers that do not want to rely on thread-local storage, e.g. short-lived
+	 * virtual threads, keep their own accumulator and pass it to
+	 * {@link #signalprocessing(double[], double[], double[])} or
+	 * {@link #classify(double[], double[])}.
+	 *
+	 * @return accumulator of length 3 * (#CorticalNeurons + 1)
+	 */
+	public double[] newAccumulator() {
+		return new double[3 * (this.cortical + 1)];
+	}
+
+	/**
+	 * Processes the light waves, using the given accumulator as working memory.
+	 * Threads that use different accumulators do not interfere.
+	 *
+	 * @param input
+	 *            light waves in nm
+	 * @param acc
+	 *            accumulator (@see #newAccumulator())
+	 * @param neuralSignal
+	 *            array of length 3 the neural signal is written to
+	 * @return neuralSignal
+	 */
+	public double[] signalprocessing(double[] input, double[] acc, double[] neuralSignal) {
+		long allocated = 0;
+		long time = 0;
+		if (NetworkMetrics.ENABLED) {
+			allocated = NetworkMetrics.allocated();
+			time = NetworkMetrics.now();
+		}
+		// all photo receptors of one type send the same signal, so it is computed once per type
+		Photoreceptor.mix(input, acc, this.mode);
+		if (NetworkMetrics.ENABLED)
+			NetworkMetrics.record(NetworkMetrics.Stage.INTEGRATION, time);
+		transmit(acc, neuralSignal);
+		if (NetworkMetrics.ENABLED)
+			NetworkMetrics.sample(allocated);
+		return neuralSignal;
+	}
+
+	/**
+	 * Sends the averaged excitation in the first three entries of the
+	 * accumulator from every photo receptor through the network and sums up the
+	 * signals of the cortical neurons.
+	 *
+	 * @param acc
+	 *            accumulator holding the averaged excitation per color channel
+	 * @param neuralSignal
+	 *            array of length 3 the neural signal is written to
+	 * @return neuralSignal
+	 */
+	double[] transmit(double[] acc, double[] neuralSignal) {
+		long time = 0;
+		if (NetworkMetrics.ENABLED)
+			time = NetworkMetrics.now();
+		Arrays.fill(acc, 3, acc.length, 0);
+		for (int r = 0; r < this.receptorIndex.length; r++) {
+			int c = this.receptorChannel[r];
+			int n = this.receptorIndex[r];
+			if (this.fanoutStart[n] < this.fanoutStart[n + 1])
+				propagate(this.fanoutTarget[this.fanoutStart[n]], c, acc[c], acc);
+		}
+		if (NetworkMetrics.ENABLED) {
+			time = NetworkMetrics.record(NetworkMetrics.Stage.FANOUT, time);
+			NetworkMetrics.transmissions(this.transmissions);
+		}
+		for (int c = 0; c < 3; c++) {
+			double sum = 0;
+			for (int k = 1; k <= this.cortical; k++) {
+				sum += acc[3 * k + c];
+			}
+			neuralSignal[c] = sum / this.colorreceptors[c];
+		}
+		if (NetworkMetrics.ENABLED)
+			NetworkMetrics.record(NetworkMetrics.Stage.CORTEX, time);
+		return neuralSignal;
+	}
+
+	/**
+	 * Gets the kind of each neuron (not a copy, must not be changed)
+	 *
+	 * @return color channel of each photo receptor, {@link #CORTICAL} or
+	 *         {@link #INTER}
+	 */
+	int[] kinds() {
+		return this.kind;
+	}
+
+	/**
+	 * Gets the first outgoing synapse of each neuron (not a copy, must not be
+	 * changed)
+	 *
+	 * @return offsets into {@link #fanoutTargets()}, of length size() + 1
+	 */
+	int[] fanoutStarts() {
+		return this.fanoutStart;
+	}
+
+	/**
+	 * Gets the postsynaptic neuron of each synapse (not a copy, must not be
+	 * changed)
+	 *
+	 * @return targets, grouped by presynaptic neuron
+	 */
+	int[] fanoutTargets() {
+		return this.fanoutTarget;
+	}
+
+	/**
+	 * Gets how the excitation of the photo receptors is computed
+	 *
+	 * @return excitation mode
+	 */
+	Photoreceptor.ExcitationMode excitationMode() {
+		return this.mode;
+	}
+
+	/**
+	 * Classifies many light mixtures. Every input is processed with empty
+	 * cortical neurons. Large batches are split among the threads of the common
+	 * fork-join pool.
+	 *
+	 * @param inputs
+	 *            light waves in nm, one array per mixture
+	 * @param results
+	 *            array the colors are written to, at the index of their input
+	 * @throws RuntimeException
+	 *             if results is shorter than inputs
+	 */
+	public void classifyBatch(double[][] inputs, String[] results) {
+		if (results.length < inputs.length)
+			throw new RuntimeException("Not enough space for the results.");
+		ForkJoinPool.commonPool().invoke(new BatchTask(this, inputs, results, 0, inputs.length));
+	}
+
+	/**
+	 * Sends one channel of a signal to a neuron: cortical neurons add it to their
+	 * sum, interneurons divide it among their outgoing synapses.
+	 *
+	 * @param n
+	 *            receiving neuron
+	 * @param c
+	 *            color channel
+	 * @param value
+	 *            signal in that channel
+	 * @param acc
+	 *            cortical accumulator
+	 */
+	private void propagate(int n, int c, double value, double[] acc) {
+		int slot = this.corticalSlot[n];
+		if (slot >= 0) {
+			acc[3 * (slot + 1) + c] += value;
+			return;
+		}
+		int end = this.fanoutStart[n + 1];
+		if (this.fanoutStart[n] == end)
+			return;
+		double part = value / this.scale[n];
+		for (int e = this.fanoutStart[n]; e < end; e++) {
+			propagate(this.fanoutTarget[e], c, part, acc);
+		}
+	}
+
+	/**
+	 * Classifies a range of a batch, splitting it in halves while it is large.
+	 */
+	private static final class BatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final CompiledNetwork network;
+		private final double[][] inputs;
+		private final String[] results;
+		private final int from;
+		private final int to;
+
+		BatchTask(CompiledNetwork network, double[][] inputs, String[] results, int from, int to) {
+			this.network = network;
+			this.inputs = inputs;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= BATCH_THRESHOLD) {
+				double[] acc = this.network.newAccumulator();
+				double[] neuralSignal = new double[3];
+				for (int i = this.from; i < this.to; i++) {
+					this.results[i] = Network.classify(this.network.signalprocessing(this.inputs[i], acc, neuralSignal));
+				}
+			} else {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new BatchTask(this.network, this.inputs, this.results, this.from, mid),
+						new BatchTask(this.network, this.inputs, this.results, mid, this.to));
+			}
+		}
+	}
+}
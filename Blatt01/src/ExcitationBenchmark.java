@@ -0,0 +1,72 @@
+import java.util.Random;
+
+/**
+ * Compares the excitation modes of the photo receptors (@see
+ * Photoreceptor.ExcitationMode). Every mode integrates the same random light
+ * mixtures; the time per light wave is printed after a warm-up phase.
+ *
+ * To include the vector API (ExcitationMode.VECTOR), compile
+ * vector/VectorExcitation.java as described there and run with
+ * {@code --add-modules jdk.incubator.vector}; otherwise VECTOR measures the
+ * scalar fallback.
+ */
+public class ExcitationBenchmark {
+	/** number of light mixtures integrated per measurement */
+	static final int SAMPLES = 100000;
+	/** number of light waves per mixture, unless given as first argument */
+	static final int WAVES = 8;
+	/** number of measurements per mode, the first half is warm-up */
+	static final int ROUNDS = 10;
+
+	/**
+	 * Integrates all samples with one receptor of each type.
+	 *
+	 * @param receptors
+	 *            a blue, a green and a red photo receptor
+	 * @param samples
+	 *            light mixtures
+	 * @return sum of the neural signals, so the work cannot be optimized away
+	 */
+	static double integrate(Photoreceptor[] receptors, double[][] samples) {
+		double sum = 0;
+		for (double[] sample : samples) {
+			for (Photoreceptor receptor : receptors) {
+				double[] signal = receptor.integrateSignal(sample);
+				sum += signal[0] + signal[1] + signal[2];
+			}
+		}
+		return sum;
+	}
+
+	public static void main(String[] args) {
+		int waves = args.length > 0 ? Integer.parseInt(args[0]) : WAVES;
+		Random random = new Random(42);
+		double[][] samples = new double[SAMPLES][waves];
+		for (double[] sample : samples) {
+			for (int i = 0; i < waves; i++) {
+				sample[i] = Photoreceptor.MIN_WAVE + random.nextDouble() * (Photoreceptor.MAX_WAVE - Photoreceptor.MIN_WAVE);
+			}
+		}
+		Photoreceptor[] receptors = { new Photoreceptor(0, "blue"), new Photoreceptor(1, "green"),
+				new Photoreceptor(2, "red") };
+		for (Photoreceptor.ExcitationMode mode : Photoreceptor.ExcitationMode.values()) {
+			for (Photoreceptor receptor : receptors) {
+				receptor.setExcitationMode(mode);
+			}
+			long best = Long.MAX_VALUE;
+			double check = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				check = integrate(receptors, samples);
+				long time = System.nanoTime() - start;
+				if (round >= ROUNDS / 2)
+					best = Math.min(best, time);
+			}
+			double perWave = (double) best / ((double) SAMPLES * waves * receptors.length);
+			System.out.printf("%-8s %8.2f ns per light wave (checksum %.6f)%n", mode, perWave, check);
+		}
+		if (!Photoreceptor.isVectorized()) {
+			System.out.println("(VectorExcitation or jdk.incubator.vector not available, VECTOR used the scalar loop)");
+		}
+	}
+}
@@ -8,6 +8,9 @@ import java.util.ArrayList;
  * @since 2019-01-11
  */
 public class Interneuron extends Neuron {
+	/** part of the last incoming signal that got transmitted to each synapse */
+	private double[] share = new double[3];
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -20,6 +23,8 @@ public class Interneuron extends Neuron {
 	/**
 	 * Divides incoming signal into equal parts for all the outgoing synapses
 	 * Transmits the parts via Synapse.transmit(Double[]);
+	 * The incoming signal is not changed. The part is computed once into an array
+	 * this neuron reuses for every signal, so it is only valid until the next call.
 	 * 
 	 * @param signal 3 dimensional signal from another neuron
 	 * @return 3 dimensional neural signal, which got transmitted to the synapses (for testing.)
@@ -27,13 +32,14 @@ public class Interneuron extends Neuron {
 	@Override
 	public double[] integrateSignal(double[] signal) {
 		int signalLength = signal.length;
+		if (this.share.length != signalLength)
+			this.share = new double[signalLength];
 		for (int c = 0; c < signalLength; c++) {
-			signal[c] = signal[c] / this.outgoingsynapses.size();
+			this.share[c] = signal[c] / this.outgoingsynapses.size();
 		}
 		for (int i = 0; i < this.outgoingsynapses.size(); i++) {
-			this.outgoingsynapses.get(i).transmit(signal);
+			this.outgoingsynapses.get(i).transmit(this.share);
 		}
-		return signal;
+		return this.share;
 	}
 }
-
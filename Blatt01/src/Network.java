@@ -1,3 +1,5 @@
+import java.util.Random;
+
 /**
  * The Network class implements a neural network.
  * The network consists of three types of neurons: photoreceptors(@see
@@ -26,6 +28,10 @@ public class Network {
      * Different receptor types
      */
     String[] receptortypes = {"blue", "green", "red"};
+    /**
+     * #Photoreceptors per type, counted while the neurons are initialized
+     */
+    private final double[] colorreceptors = new double[3];
 
     /**
      * Adds neurons to the network.
@@ -48,13 +54,8 @@ public class Network {
             this.cortical = cortical;
             int index;
             for (index = 0; index < receptors; index++) {
-                if (index % 3 == 0) {
-                    this.neurons[index] = new Photoreceptor(index, receptortypes[0]);
-                } else if (index % 3 == 1) {
-                    this.neurons[index] = new Photoreceptor(index, receptortypes[1]);
-                } else if (index % 3 == 2) {
-                    this.neurons[index] = new Photoreceptor(index, receptortypes[2]);
-                }
+                this.neurons[index] = new Photoreceptor(index, receptortypes[index % 3]);
+                this.colorreceptors[index % 3]++;
             }
             for (; index < receptors + cortical; index++) {
                 this.neurons[index] = new CorticalNeuron(index);
@@ -66,6 +67,58 @@ public class Network {
         }
     }
 
+    /**
+     * Builds a randomly wired network. Every photoreceptor gets one synapse to its own
+     * interneuron, and every interneuron gets synapses to {@code fanout} different
+     * cortical neurons (or to all of them, if there are fewer). The same seed always
+     * gives the same wiring.
+     *
+     * @param inter     #Interneurons
+     * @param receptors #Photoreceptors
+     * @param cortical  #CorticalNeurons
+     * @param fanout    #Synapses per interneuron
+     * @param seed      seed of the random wiring
+     * @return the wired network
+     * @throws RuntimeException if the network cannot be constructed (@see #Network(int, int, int)),
+     *                          or if there are no cortical neurons or fanout is not positive.
+     */
+    public static Network random(int inter, int receptors, int cortical, int fanout, long seed) {
+        if (cortical < 1 || fanout < 1) {
+            throw new RuntimeException();
+        }
+        Network network = new Network(inter, receptors, cortical);
+        Random random = new Random(seed);
+        int first = receptors + cortical;
+        // shuffle the interneurons, so the receptors of one type are spread over all of them
+        int[] interneurons = new int[inter];
+        for (int i = 0; i < inter; i++) {
+            int j = random.nextInt(i + 1);
+            interneurons[i] = interneurons[j];
+            interneurons[j] = first + i;
+        }
+        for (int r = 0; r < receptors; r++) {
+            network.addSynapse(network.neurons[r], network.neurons[interneurons[r]]);
+        }
+        int synapses = Math.min(fanout, cortical);
+        int[] targets = new int[synapses];
+        for (int i = first; i < first + inter; i++) {
+            for (int k = 0; k < synapses; k++) {
+                int target = receptors + k;
+                boolean taken = synapses < cortical;
+                while (taken) {
+                    target = receptors + random.nextInt(cortical);
+                    taken = false;
+                    for (int l = 0; l < k; l++) {
+                        taken |= targets[l] == target;
+                    }
+                }
+                targets[k] = target;
+                network.addSynapse(network.neurons[i], network.neurons[target]);
+            }
+        }
+        return network;
+    }
+
     /**
      * Add a Synapse between the Neurons. The different neurons have their outgoing
      * synapses as an attribute and each a method addSynapse. ({@link Interneuron}, {@link Photoreceptor},
@@ -89,34 +142,102 @@ public class Network {
      * @return the neural signal that can be used to classify the color
      */
     public double[] signalprocessing(double[] input) {
+        long allocated = 0;
+        long time = 0;
+        if (NetworkMetrics.ENABLED) {
+            allocated = NetworkMetrics.allocated();
+            time = NetworkMetrics.now();
+        }
         for (int i = 0; i < receptors; i++) {
             neurons[i].integrateSignal(input);
         }
+        if (NetworkMetrics.ENABLED)
+            time = NetworkMetrics.record(NetworkMetrics.Stage.INTEGRATION, time);
         double[] neuralSignal = new double[3];
         for (int i = 0; i < 3; i++) {
             for (int k = receptors; k < receptors + cortical; k++) {
                 neuralSignal[i] += ((CorticalNeuron) neurons[k]).getSignal()[i];
             }
-            neuralSignal[i] /= countColorreceptors()[i];
+            neuralSignal[i] /= colorreceptors[i];
+        }
+        if (NetworkMetrics.ENABLED) {
+            NetworkMetrics.record(NetworkMetrics.Stage.CORTEX, time);
+            NetworkMetrics.sample(allocated);
         }
         return neuralSignal;
     }
 
-    public double[] countColorreceptors() {
-        double[] colorreceptors = new double[3];
-        Photoreceptor c;
-        for (Neuron neuron : this.neurons) {
-            if (neuron instanceof Photoreceptor) {
-                c = (Photoreceptor) neuron;
-                if (c.type.equals("blue"))
-                    colorreceptors[0]++;
-                else if (c.type.equals("green"))
-                    colorreceptors[1]++;
-                else if (c.type.equals("red"))
-                    colorreceptors[2]++;
+    /**
+     * Sets how the photoreceptors compute their excitation (@see Photoreceptor.ExcitationMode).
+     *
+     * @param mode excitation mode of all photoreceptors
+     */
+    public void setExcitationMode(Photoreceptor.ExcitationMode mode) {
+        for (int i = 0; i < receptors; i++) {
+            ((Photoreceptor) neurons[i]).setExcitationMode(mode);
+        }
+    }
+
+    /**
+     * Flattens the wired network into arrays (@see CompiledNetwork). Synapses added
+     * afterwards are not part of the compiled network. The compiled network uses the
+     * excitation mode of the photoreceptors. Unlike this network, the compiled network
+     * may be evaluated by many threads at once.
+     *
+     * @return the compiled network
+     * @throws RuntimeException if the photoreceptors use different excitation modes
+     */
+    public CompiledNetwork compile() {
+        int[] kind = new int[neurons.length];
+        int[] fanoutStart = new int[neurons.length + 1];
+        Photoreceptor.ExcitationMode mode = null;
+        for (int n = 0; n < neurons.length; n++) {
+            if (neurons[n] instanceof Photoreceptor) {
+                Photoreceptor receptor = (Photoreceptor) neurons[n];
+                if (mode == null)
+                    mode = receptor.mode;
+                else if (receptor.mode != mode)
+                    throw new RuntimeException("The photoreceptors use different excitation modes.");
+                kind[n] = receptor.channel;
+            } else if (neurons[n] instanceof CorticalNeuron) {
+                kind[n] = CompiledNetwork.CORTICAL;
+            } else {
+                kind[n] = CompiledNetwork.INTER;
             }
+            int fanout = neurons[n].outgoingsynapses == null ? 0 : neurons[n].outgoingsynapses.size();
+            fanoutStart[n + 1] = fanoutStart[n] + fanout;
         }
-        return colorreceptors;
+        int[] fanoutTarget = new int[fanoutStart[neurons.length]];
+        for (int n = 0; n < neurons.length; n++) {
+            int e = fanoutStart[n];
+            for (int k = e; k < fanoutStart[n + 1]; k++) {
+                fanoutTarget[k] = neurons[n].outgoingsynapses.get(k - e).getPost().index;
+            }
+        }
+        return new CompiledNetwork(kind, fanoutStart, fanoutTarget, mode);
+    }
+
+    /**
+     * Classifies many light mixtures at once (@see CompiledNetwork#classifyBatch(double[][], String[])).
+     * The cortical neurons of this network are not used, so there is no need to reset them.
+     * Every call compiles the network again (@see #compile()), which takes time in the order of
+     * the number of synapses; to classify several batches with the same wiring, compile the
+     * network once and call {@link CompiledNetwork#classifyBatch(double[][], String[])}.
+     *
+     * @param inputs  light waves in nm, one array per mixture
+     * @param results array the colors are written to, at the index of their input
+     */
+    public void classifyBatch(double[][] inputs, String[] results) {
+        compile().classifyBatch(inputs, results);
+    }
+
+    /**
+     * Gets the number of photoreceptors of each type.
+     *
+     * @return #Photoreceptors per type (blue, green, red)
+     */
+    public double[] countColorreceptors() {
+        return colorreceptors.clone();
     }
 
     /**
@@ -126,6 +247,16 @@ public class Network {
      * @return color of the mixed light signals as a String
      */
     public String colors(double[] signal) {
+        return classify(signal);
+    }
+
+    /**
+     * Classifies the neural signal to a color (@see #colors(double[])).
+     *
+     * @param signal neural signal from the cortical neurons
+     * @return color of the mixed light signals as a String
+     */
+    static String classify(double[] signal) {
         String color = "grey";
         if (signal[0] > 0.6 && signal[1] < 0.074)
             color = "violet";
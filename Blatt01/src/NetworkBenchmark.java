@@ -0,0 +1,84 @@
+import java.util.Random;
+
+/**
+ * Measures how the evaluation of a network scales with its size. For growing
+ * numbers of photo receptors a random network (@see Network#random(int, int,
+ * int, int, long)) is evaluated with the object graph
+ * ({@link Network#signalprocessing(double[])}) and with the compiled network
+ * ({@link CompiledNetwork}). Printed are the light samples per second and the
+ * bytes allocated per sample.
+ *
+ * The largest number of photo receptors can be given as first argument
+ * (default 1000000).
+ */
+public class NetworkBenchmark {
+	/** interneurons per cortical neuron */
+	static final int CONVERGENCE = 100;
+	/** synapses per interneuron */
+	static final int FANOUT = 4;
+	/** light waves per sample */
+	static final int WAVES = 4;
+	/** time spent on each measurement, in ns */
+	static final long DURATION = 1000000000L;
+
+	/**
+	 * Something that processes one light sample
+	 */
+	interface Evaluation {
+		void run(double[] sample);
+	}
+
+	/**
+	 * Evaluates samples until the duration has passed, after a warm-up of the
+	 * same length, and prints the throughput.
+	 *
+	 * @param name
+	 *            label of the measurement
+	 * @param receptors
+	 *            #Photoreceptors of the network
+	 * @param samples
+	 *            light samples, used round robin
+	 * @param evaluation
+	 *            processes one sample
+	 */
+	static void measure(String name, int receptors, double[][] samples, Evaluation evaluation) {
+		for (int phase = 0; phase < 2; phase++) {
+			long count = 0;
+			long bytes = NetworkMetrics.allocated();
+			long start = System.nanoTime();
+			long time;
+			do {
+				evaluation.run(samples[(int) (count++ % samples.length)]);
+				time = System.nanoTime() - start;
+			} while (time < DURATION);
+			bytes = NetworkMetrics.allocated() - bytes;
+			if (phase == 1)
+				System.out.printf("%-9s %9d receptors %14.1f samples/s %12.1f bytes/sample%n", name, receptors,
+						count * 1e9 / time, (double) bytes / count);
+		}
+	}
+
+	public static void main(String[] args) {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		Random random = new Random(42);
+		double[][] samples = new double[1024][WAVES];
+		for (double[] sample : samples) {
+			for (int i = 0; i < WAVES; i++) {
+				sample[i] = Photoreceptor.MIN_WAVE + random.nextInt(Photoreceptor.MAX_WAVE - Photoreceptor.MIN_WAVE + 1);
+			}
+		}
+		for (int receptors = 1000; receptors <= max; receptors *= 10) {
+			int cortical = Math.max(1, receptors / CONVERGENCE);
+			Network network = Network.random(receptors, receptors, cortical, FANOUT, receptors);
+			measure("objects", receptors, samples, sample -> {
+				for (int k = network.receptors; k < network.receptors + network.cortical; k++) {
+					((CorticalNeuron) network.neurons[k]).reset();
+				}
+				network.signalprocessing(sample);
+			});
+			CompiledNetwork compiled = network.compile();
+			double[] neuralSignal = new double[3];
+			measure("compiled", receptors, samples, sample -> compiled.signalprocessing(sample, neuralSignal));
+		}
+	}
+}
@@ -0,0 +1,204 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class NetworkMetrics counts where the time of
+ * {@link Network#signalprocessing(double[])} and
+ * {@link CompiledNetwork#signalprocessing(double[], double[], double[])} goes.
+ *
+ * The metrics are switched on with the system property
+ * {@code -Dnetwork.metrics=true}. Every use is guarded by the constant
+ * {@link #ENABLED}, so when they are switched off the JIT compiler removes the
+ * guarded code and the measured methods run as if it was not there.
+ *
+ * Recorded are the latency of every stage in a histogram with power-of-two
+ * buckets, the synapse transmissions and the bytes allocated per sample. All
+ * counters may be updated by many threads at once.
+ */
+public final class NetworkMetrics {
+	/** whether metrics are recorded */
+	public static final boolean ENABLED = Boolean.getBoolean("network.metrics");
+
+	/**
+	 * Stages of processing a light sample
+	 */
+	public enum Stage {
+		/**
+		 * photo receptors average the excitation (in the object graph including
+		 * the transmission through the network)
+		 */
+		INTEGRATION,
+		/** interneurons divide the signals among the cortical neurons */
+		FANOUT,
+		/** the signals of the cortical neurons are summed up */
+		CORTEX
+	}
+
+	/** number of histogram buckets: bucket b counts latencies below 2^b ns */
+	static final int BUCKETS = 40;
+
+	private static final AtomicLongArray[] LATENCY = new AtomicLongArray[Stage.values().length];
+	private static final LongAdder[] TIME = new LongAdder[Stage.values().length];
+	private static final LongAdder SAMPLES = new LongAdder();
+	private static final LongAdder TRANSMISSIONS = new LongAdder();
+	private static final LongAdder ALLOCATED = new LongAdder();
+
+	/** allocation counters of the JVM, if available */
+	private static final com.sun.management.ThreadMXBean THREADS = ManagementFactory
+			.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+					? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+					: null;
+
+	static {
+		for (int s = 0; s < LATENCY.length; s++) {
+			LATENCY[s] = new AtomicLongArray(BUCKETS);
+			TIME[s] = new LongAdder();
+		}
+	}
+
+	private NetworkMetrics() {
+	}
+
+	/**
+	 * Gets the current time for measuring a stage
+	 *
+	 * @return time in ns
+	 */
+	static long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records the latency of a stage.
+	 *
+	 * @param stage
+	 *            the stage that ended now
+	 * @param start
+	 *            time the stage started (@see #now())
+	 * @return the current time, i.e. the start of the next stage
+	 */
+	static long record(Stage stage, long start) {
+		long end = System.nanoTime();
+		long latency = Math.max(0, end - start);
+		int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(latency));
+		LATENCY[stage.ordinal()].incrementAndGet(bucket);
+		TIME[stage.ordinal()].add(latency);
+		return end;
+	}
+
+	/**
+	 * Gets the number of bytes the current thread has allocated so far
+	 *
+	 * @return allocated bytes, or 0 if the JVM does not count them
+	 */
+	static long allocated() {
+		return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Records a processed sample.
+	 *
+	 * @param allocatedBefore
+	 *            allocated bytes at the start of the sample (@see #allocated())
+	 */
+	static void sample(long allocatedBefore) {
+		SAMPLES.increment();
+		ALLOCATED.add(allocated() - allocatedBefore);
+	}
+
+	/**
+	 * Records synapse transmissions
+	 *
+	 * @param count
+	 *            number of transmissions
+	 */
+	static void transmissions(long count) {
+		TRANSMISSIONS.add(count);
+	}
+
+	/**
+	 * Gets the number of recorded samples
+	 *
+	 * @return #Samples
+	 */
+	public static long samples() {
+		return SAMPLES.sum();
+	}
+
+	/**
+	 * Gets the number of recorded synapse transmissions
+	 *
+	 * @return #Transmissions
+	 */
+	public static long transmissions() {
+		return TRANSMISSIONS.sum();
+	}
+
+	/**
+	 * Gets the number of bytes allocated while processing the recorded samples
+	 *
+	 * @return allocated bytes
+	 */
+	public static long allocatedBytes() {
+		return ALLOCATED.sum();
+	}
+
+	/**
+	 * Gets the latency histogram of a stage
+	 *
+	 * @param stage
+	 *            the stage
+	 * @return number of latencies per bucket; bucket b counts latencies from
+	 *         2^(b-1) ns to below 2^b ns
+	 */
+	public static long[] histogram(Stage stage) {
+		long[] histogram = new long[BUCKETS];
+		for (int b = 0; b < BUCKETS; b++) {
+			histogram[b] = LATENCY[stage.ordinal()].get(b);
+		}
+		return histogram;
+	}
+
+	/**
+	 * Gets the total time spent in a stage
+	 *
+	 * @param stage
+	 *            the stage
+	 * @return time in ns
+	 */
+	public static long time(Stage stage) {
+		return TIME[stage.ordinal()].sum();
+	}
+
+	/**
+	 * Sets all counters back to 0
+	 */
+	public static void reset() {
+		for (int s = 0; s < LATENCY.length; s++) {
+			for (int b = 0; b < BUCKETS; b++) {
+				LATENCY[s].set(b, 0);
+			}
+			TIME[s].reset();
+		}
+		SAMPLES.reset();
+		TRANSMISSIONS.reset();
+		ALLOCATED.reset();
+	}
+
+	/**
+	 * Summarizes the counters per sample
+	 *
+	 * @return one line per stage and one for transmissions and allocations
+	 */
+	public static String report() {
+		long samples = Math.max(1, samples());
+		StringBuilder report = new StringBuilder();
+		for (Stage stage : Stage.values()) {
+			report.append(String.format("%-12s %12.1f ns/sample%n", stage, (double) time(stage) / samples));
+		}
+		report.append(String.format("%-12s %12.1f per sample%n", "TRANSMIT", (double) transmissions() / samples));
+		report.append(String.format("%-12s %12.1f bytes/sample%n", "ALLOCATED", (double) allocatedBytes() / samples));
+		return report.toString();
+	}
+}
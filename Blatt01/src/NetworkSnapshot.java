@@ -0,0 +1,250 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The class NetworkSnapshot stores wired networks in a compact binary file, so
+ * a large network does not have to be rebuilt with one
+ * {@link Network#addSynapse(Neuron, Neuron)} per synapse at startup.
+ *
+ * Layout of a snapshot (all numbers big-endian):
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * int    excitation mode (ordinal of Photoreceptor.ExcitationMode)
+ * int    #Neurons n
+ * int    #Synapses m
+ * byte[n] kind of each neuron (0, 1, 2 color channel of a photo receptor, 3 cortical, 4 inter)
+ * byte[] padding to a multiple of 4 bytes
+ * int[n + 1] first outgoing synapse of each neuron
+ * int[m] postsynaptic neuron of each synapse, grouped by presynaptic neuron
+ * </pre>
+ * This is the layout of {@link CompiledNetwork}, so loading it only copies
+ * arrays out of the memory-mapped file.
+ */
+public class NetworkSnapshot {
+	/** first bytes of every snapshot: "NNET" */
+	static final int MAGIC = 0x4E4E4554;
+	/** version of the layout */
+	static final int VERSION = 1;
+	/** size of the header in bytes */
+	static final int HEADER = 5 * Integer.BYTES;
+
+	/**
+	 * Writes a snapshot of a network.
+	 *
+	 * @param network
+	 *            the wired network
+	 * @param file
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void write(Network network, Path file) throws IOException {
+		write(network.compile(), file);
+	}
+
+	/**
+	 * Writes a snapshot of a compiled network.
+	 *
+	 * @param network
+	 *            the compiled network
+	 * @param file
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void write(CompiledNetwork network, Path file) throws IOException {
+		int[] kind = network.kinds();
+		int[] fanoutStart = network.fanoutStarts();
+		int[] fanoutTarget = network.fanoutTargets();
+		int n = kind.length;
+		long length = HEADER + padded(n) + (long) Integer.BYTES * (n + 1 + fanoutTarget.length);
+		if (length > Integer.MAX_VALUE)
+			throw new IOException("Network too large for a snapshot.");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(network.excitationMode().ordinal()).putInt(n)
+					.putInt(fanoutTarget.length);
+			for (int k : kind) {
+				buffer.put((byte) k);
+			}
+			buffer.position(HEADER + padded(n));
+			IntBuffer ints = buffer.asIntBuffer();
+			ints.put(fanoutStart).put(fanoutTarget);
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Loads a snapshot as compiled network.
+	 *
+	 * @param file
+	 *            snapshot written by {@link #write(Network, Path)}
+	 * @return the compiled network
+	 * @throws IOException
+	 *             if reading fails or the file is not a valid snapshot
+	 */
+	public static CompiledNetwork load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER || channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Not a network snapshot: " + file);
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("Not a network snapshot: " + file);
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported snapshot version " + version + ": " + file);
+			int mode = buffer.getInt();
+			int n = buffer.getInt();
+			int m = buffer.getInt();
+			Photoreceptor.ExcitationMode[] modes = Photoreceptor.ExcitationMode.values();
+			if (mode < 0 || mode >= modes.length || n < 0 || m < 0
+					|| channel.size() != HEADER + padded(n) + (long) Integer.BYTES * (n + 1 + (long) m))
+				throw new IOException("Corrupt network snapshot: " + file);
+			int[] kind = new int[n];
+			for (int i = 0; i < n; i++) {
+				kind[i] = buffer.get();
+				if (kind[i] < 0 || kind[i] > CompiledNetwork.INTER)
+					throw new IOException("Corrupt network snapshot: " + file);
+			}
+			buffer.position(HEADER + padded(n));
+			IntBuffer ints = buffer.asIntBuffer();
+			int[] fanoutStart = new int[n + 1];
+			int[] fanoutTarget = new int[m];
+			ints.get(fanoutStart).get(fanoutTarget);
+			for (int i = 0; i < n; i++) {
+				if (fanoutStart[i] > fanoutStart[i + 1])
+					throw new IOException("Corrupt network snapshot: " + file);
+			}
+			if (fanoutStart[0] != 0 || fanoutStart[n] != m)
+				throw new IOException("Corrupt network snapshot: " + file);
+			for (int target : fanoutTarget) {
+				if (target < 0 || target >= n || kind[target] < CompiledNetwork.CORTICAL)
+					throw new IOException("Corrupt network snapshot: " + file);
+			}
+			// the wiring rules of CompiledNetwork, which would throw a RuntimeException
+			for (int i = 0; i < n; i++) {
+				int fanout = fanoutStart[i + 1] - fanoutStart[i];
+				if ((kind[i] == CompiledNetwork.CORTICAL && fanout != 0)
+						|| (kind[i] < CompiledNetwork.CORTICAL && fanout > 1))
+					throw new IOException("Corrupt network snapshot: " + file);
+			}
+			if (!isAcyclic(kind, fanoutStart, fanoutTarget))
+				throw new IOException("Corrupt network snapshot: " + file);
+			try {
+				return new CompiledNetwork(kind, fanoutStart, fanoutTarget, modes[mode]);
+			} catch (RuntimeException e) {
+				throw new IOException("Corrupt network snapshot: " + file, e);
+			}
+		}
+	}
+
+	/**
+	 * Loads a snapshot as network of neuron objects, e.g. to add more synapses.
+	 * Only snapshots of networks that were constructed with
+	 * {@link Network#Network(int, int, int)} can be loaded this way.
+	 *
+	 * @param file
+	 *            snapshot written by {@link #write(Network, Path)}
+	 * @return the wired network
+	 * @throws IOException
+	 *             if reading fails, the file is not a valid snapshot or its
+	 *             neurons are not in the order of the Network constructor
+	 */
+	public static Network loadNetwork(Path file) throws IOException {
+		CompiledNetwork compiled = load(file);
+		int[] kind = compiled.kinds();
+		int receptors = 0;
+		int cortical = 0;
+		while (receptors < kind.length && kind[receptors] == receptors % 3) {
+			receptors++;
+		}
+		while (receptors + cortical < kind.length && kind[receptors + cortical] == CompiledNetwork.CORTICAL) {
+			cortical++;
+		}
+		int inter = kind.length - receptors - cortical;
+		for (int i = receptors + cortical; i < kind.length; i++) {
+			if (kind[i] != CompiledNetwork.INTER)
+				throw new IOException("Snapshot does not follow the neuron order of Network: " + file);
+		}
+		Network network;
+		try {
+			network = new Network(inter, receptors, cortical);
+		} catch (RuntimeException e) {
+			throw new IOException("Snapshot does not follow the neuron order of Network: " + file, e);
+		}
+		network.setExcitationMode(compiled.excitationMode());
+		int[] fanoutStart = compiled.fanoutStarts();
+		int[] fanoutTarget = compiled.fanoutTargets();
+		for (int i = 0; i < kind.length; i++) {
+			for (int e = fanoutStart[i]; e < fanoutStart[i + 1]; e++) {
+				network.addSynapse(network.neurons[i], network.neurons[fanoutTarget[e]]);
+			}
+		}
+		return network;
+	}
+
+	/**
+	 * Checks that no signal can return to an interneuron it has passed, i.e. that
+	 * the interneurons can be sorted topologically. Signals that circle forever
+	 * would overflow the stack of the recursive propagation.
+	 *
+	 * @param kind
+	 *            kind of each neuron
+	 * @param fanoutStart
+	 *            first outgoing synapse of each neuron
+	 * @param fanoutTarget
+	 *            postsynaptic neuron of each synapse, which is no photo receptor
+	 * @return whether the synapses between interneurons form no cycle
+	 */
+	private static boolean isAcyclic(int[] kind, int[] fanoutStart, int[] fanoutTarget) {
+		int n = kind.length;
+		// number of synapses from interneurons that end in each neuron
+		int[] incoming = new int[n];
+		for (int i = 0; i < n; i++) {
+			if (kind[i] == CompiledNetwork.INTER) {
+				for (int e = fanoutStart[i]; e < fanoutStart[i + 1]; e++) {
+					incoming[fanoutTarget[e]]++;
+				}
+			}
+		}
+		int[] ready = new int[n];
+		int size = 0;
+		int inter = 0;
+		for (int i = 0; i < n; i++) {
+			if (kind[i] == CompiledNetwork.INTER) {
+				inter++;
+				if (incoming[i] == 0)
+					ready[size++] = i;
+			}
+		}
+		int sorted = 0;
+		while (size > 0) {
+			int i = ready[--size];
+			sorted++;
+			for (int e = fanoutStart[i]; e < fanoutStart[i + 1]; e++) {
+				int target = fanoutTarget[e];
+				if (kind[target] == CompiledNetwork.INTER && --incoming[target] == 0)
+					ready[size++] = target;
+			}
+		}
+		return sorted == inter;
+	}
+
+	/**
+	 * Rounds a number of bytes up to a multiple of 4.
+	 *
+	 * @param bytes
+	 *            number of bytes
+	 * @return padded number of bytes
+	 */
+	private static int padded(int bytes) {
+		return (bytes + 3) & ~3;
+	}
+}
@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class NetworkSnapshotTest {
+
+	/**
+	 * Writes a snapshot of the given network to a temporary file.
+	 */
+	Path snapshot(CompiledNetwork network) throws IOException {
+		Path file = Files.createTempFile("network", ".snapshot");
+		file.toFile().deleteOnExit();
+		NetworkSnapshot.write(network, file);
+		return file;
+	}
+
+	/**
+	 * Overwrites the postsynaptic neuron of the first synapse in a snapshot.
+	 */
+	void setFirstTarget(Path file, int n, int target) throws IOException {
+		long position = NetworkSnapshot.HEADER + ((n + 3) & ~3) + (long) Integer.BYTES * (n + 1);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).putInt(target);
+			buffer.flip();
+			channel.write(buffer, position);
+		}
+	}
+
+	@Test
+	void testRoundTrip() throws IOException {
+		CompiledNetwork network = Network.random(30, 30, 5, 3, 7).compile();
+		CompiledNetwork loaded = NetworkSnapshot.load(snapshot(network));
+		assertArrayEquals(network.kinds(), loaded.kinds());
+		assertArrayEquals(network.fanoutStarts(), loaded.fanoutStarts());
+		assertArrayEquals(network.fanoutTargets(), loaded.fanoutTargets());
+	}
+
+	@Test
+	void testSynapseToPhotoreceptorIsCorrupt() throws IOException {
+		CompiledNetwork network = Network.random(30, 30, 5, 3, 7).compile();
+		Path file = snapshot(network);
+		// neuron 0 is a photo receptor, which does not receive synaptic input
+		assertTrue(network.kinds()[0] < CompiledNetwork.CORTICAL);
+		setFirstTarget(file, network.size(), 0);
+		assertThrows(IOException.class, () -> NetworkSnapshot.load(file));
+	}
+
+	@Test
+	void testSynapseOutOfRangeIsCorrupt() throws IOException {
+		CompiledNetwork network = Network.random(30, 30, 5, 3, 7).compile();
+		Path file = snapshot(network);
+		setFirstTarget(file, network.size(), network.size());
+		assertThrows(IOException.class, () -> NetworkSnapshot.load(file));
+	}
+
+	@Test
+	void testCycleIsCorrupt() throws IOException {
+		Network network = new Network(3, 3, 1);
+		for (int r = 0; r < 3; r++) {
+			network.addSynapse(network.neurons[r], network.neurons[4]);
+		}
+		// 4 -> 5 -> 6 -> 4, and 5 also feeds the cortical neuron
+		network.addSynapse(network.neurons[4], network.neurons[5]);
+		network.addSynapse(network.neurons[5], network.neurons[3]);
+		network.addSynapse(network.neurons[5], network.neurons[6]);
+		network.addSynapse(network.neurons[6], network.neurons[4]);
+		Path file = Files.createTempFile("network", ".snapshot");
+		file.toFile().deleteOnExit();
+		NetworkSnapshot.write(network, file);
+		IOException e = assertThrows(IOException.class, () -> NetworkSnapshot.load(file));
+		assertTrue(e.getMessage().startsWith("Corrupt network snapshot"));
+	}
+
+	@Test
+	void testChainIsNoCycle() throws IOException {
+		Network network = new Network(3, 3, 1);
+		for (int r = 0; r < 3; r++) {
+			network.addSynapse(network.neurons[r], network.neurons[4 + r]);
+		}
+		// two paths from 4 to 6
+		network.addSynapse(network.neurons[4], network.neurons[5]);
+		network.addSynapse(network.neurons[4], network.neurons[6]);
+		network.addSynapse(network.neurons[5], network.neurons[6]);
+		network.addSynapse(network.neurons[6], network.neurons[3]);
+		CompiledNetwork loaded = NetworkSnapshot.load(snapshot(network.compile()));
+		assertArrayEquals(network.compile().fanoutTargets(), loaded.fanoutTargets());
+	}
+}
@@ -0,0 +1,163 @@
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class NetworkTest {
+
+	/**
+	 * Wires every photo receptor to a random interneuron and every interneuron
+	 * to one to three random cortical neurons or, if chained, also to
+	 * interneurons behind it.
+	 */
+	Network wire(int inter, int receptors, int cortical, boolean chained, Random random) {
+		Network network = new Network(inter, receptors, cortical);
+		int first = receptors + cortical;
+		for (int r = 0; r < receptors; r++) {
+			network.addSynapse(network.neurons[r], network.neurons[first + random.nextInt(inter)]);
+		}
+		for (int i = first; i < first + inter; i++) {
+			int synapses = 1 + random.nextInt(3);
+			int behind = first + inter - 1 - i;
+			for (int k = 0; k < synapses; k++) {
+				int target = receptors + random.nextInt(cortical);
+				if (chained && behind > 0 && random.nextBoolean())
+					target = i + 1 + random.nextInt(behind);
+				network.addSynapse(network.neurons[i], network.neurons[target]);
+			}
+		}
+		return network;
+	}
+
+	double[] light(Random random) {
+		double[] waves = new double[1 + random.nextInt(5)];
+		for (int i = 0; i < waves.length; i++) {
+			waves[i] = 380 + random.nextInt(371);
+		}
+		return waves;
+	}
+
+	void reset(Network network) {
+		for (int k = network.receptors; k < network.receptors + network.cortical; k++) {
+			((CorticalNeuron) network.neurons[k]).reset();
+		}
+	}
+
+	/**
+	 * Compares the compiled network with the object graph on random wirings.
+	 */
+	void assertSameSignals(boolean chained) {
+		Random random = new Random(1);
+		double[] neuralSignal = new double[3];
+		for (int t = 0; t < 50; t++) {
+			int receptors = 3 + random.nextInt(20);
+			Network network = wire(receptors + random.nextInt(10), receptors, 1 + random.nextInt(5), chained,
+					random);
+			CompiledNetwork compiled = network.compile();
+			for (int s = 0; s < 20; s++) {
+				double[] waves = light(random);
+				reset(network);
+				double[] expected = network.signalprocessing(waves);
+				assertArrayEquals(expected, compiled.signalprocessing(waves, neuralSignal), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	void testCompiledMatchesObjectGraph() {
+		assertSameSignals(false);
+	}
+
+	@Test
+	void testChainedInterneurons() {
+		assertSameSignals(true);
+	}
+
+	@Test
+	void testInterneuronKeepsInput() {
+		Network network = new Network(3, 3, 2);
+		Interneuron interneuron = (Interneuron) network.neurons[5];
+		network.addSynapse(interneuron, network.neurons[3]);
+		network.addSynapse(interneuron, network.neurons[4]);
+		double[] signal = { 0.25, 0.5, 1 };
+		double[] shares = interneuron.integrateSignal(signal);
+		assertArrayEquals(new double[] { 0.25, 0.5, 1 }, signal, 0);
+		assertArrayEquals(new double[] { 0.125, 0.25, 0.5 }, shares, 0);
+	}
+
+	@Test
+	void testCompiledNetworkSize() {
+		Network network = wire(5, 3, 2, false, new Random(2));
+		CompiledNetwork compiled = network.compile();
+		assertEquals(10, compiled.size());
+		int synapses = 0;
+		for (Neuron neuron : network.neurons) {
+			synapses += neuron.outgoingsynapses == null ? 0 : neuron.outgoingsynapses.size();
+		}
+		assertEquals(synapses, compiled.synapses());
+	}
+
+	@Test
+	void testClassifyBatch() {
+		Random random = new Random(3);
+		Network network = wire(20, 12, 3, false, random);
+		// large enough to be split among several tasks
+		double[][] inputs = new double[3 * CompiledNetwork.BATCH_THRESHOLD + 7][];
+		for (int i = 0; i < inputs.length; i++) {
+			inputs[i] = light(random);
+		}
+		String[] results = new String[inputs.length];
+		network.classifyBatch(inputs, results);
+		for (int i = 0; i < inputs.length; i++) {
+			reset(network);
+			assertEquals(network.colors(network.signalprocessing(inputs[i])), results[i]);
+		}
+	}
+
+	@Test
+	void testLookupEqualsAnalytic() {
+		for (int c = 0; c < 3; c++) {
+			for (int wave = 300; wave <= 800; wave++) {
+				assertEquals(Photoreceptor.excitation(c, wave),
+						Photoreceptor.excitation(c, wave, Photoreceptor.ExcitationMode.LOOKUP), 0);
+			}
+		}
+		Random random = new Random(4);
+		Network network = wire(10, 6, 2, false, random);
+		network.setExcitationMode(Photoreceptor.ExcitationMode.LOOKUP);
+		CompiledNetwork compiled = network.compile();
+		for (int s = 0; s < 100; s++) {
+			double[] waves = light(random);
+			reset(network);
+			assertArrayEquals(network.signalprocessing(waves), compiled.signalprocessing(waves, new double[3]), 1e-12);
+		}
+	}
+
+	@Test
+	void testCompileNeedsOneExcitationMode() {
+		Network network = wire(10, 6, 2, false, new Random(5));
+		network.setExcitationMode(Photoreceptor.ExcitationMode.LOOKUP);
+		((Photoreceptor) network.neurons[0]).setExcitationMode(Photoreceptor.ExcitationMode.ANALYTIC);
+		assertThrows(RuntimeException.class, network::compile);
+	}
+
+	@Test
+	void testSpectralStreamMatchesCompiledNetwork() throws InterruptedException {
+		Random random = new Random(6);
+		CompiledNetwork compiled = wire(20, 12, 3, false, random).compile();
+		java.util.concurrent.BlockingQueue<String> colors = new java.util.concurrent.LinkedBlockingQueue<>();
+		SpectralStream stream = new SpectralStream(compiled, 4, colors);
+		double[] waves = new double[4 * 50 + 2];
+		for (int i = 0; i < waves.length; i++) {
+			waves[i] = 380 + random.nextInt(371);
+			stream.accept(waves[i]);
+		}
+		stream.flush();
+		assertEquals(51, stream.windows());
+		for (int from = 0; from < waves.length; from += 4) {
+			double[] window = java.util.Arrays.copyOfRange(waves, from, Math.min(waves.length, from + 4));
+			assertEquals(Network.classify(compiled.signalprocessing(window, new double[3])), colors.take());
+		}
+	}
+}
@@ -9,8 +9,86 @@ import java.util.ArrayList;
  * @since 2019-01-11
  */
 public class Photoreceptor extends Neuron {
+	/**
+	 * Ways of computing the excitation of a photo receptor
+	 */
+	public enum ExcitationMode {
+		/** evaluates the response curves for every light wave */
+		ANALYTIC,
+		/** reads the response from a table precomputed per nanometer */
+		LOOKUP,
+		/**
+		 * evaluates the response curves for many light waves at once with the
+		 * vector API (@see VectorExcitation in the source root vector); falls back
+		 * to ANALYTIC if that class was not compiled or the module
+		 * jdk.incubator.vector is not available
+		 */
+		VECTOR
+	}
+
+	/** shortest light wave that excites a photo receptor */
+	static final int MIN_WAVE = 380;
+	/** longest light wave that excites a photo receptor */
+	static final int MAX_WAVE = 750;
+	/** excitation per type of receptor and light wave from MIN_WAVE to MAX_WAVE, shared by all receptors */
+	private static final double[][] EXCITATION_TABLE = new double[3][MAX_WAVE - MIN_WAVE + 1];
+
+	/** vectorized excitation, or null if the vector API is not available */
+	private static final ExcitationKernel VECTOR_KERNEL = loadVectorKernel();
+
+	static {
+		for (int c = 0; c < 3; c++) {
+			for (int wave = MIN_WAVE; wave <= MAX_WAVE; wave++) {
+				EXCITATION_TABLE[c][wave - MIN_WAVE] = excitation(c, wave);
+			}
+		}
+	}
+
+	/**
+	 * Sums up the excitation of one type of photo receptor over many light waves
+	 */
+	interface ExcitationKernel {
+		/**
+		 * @param channel
+		 *            type of the receptor (0 blue, 1 green, 2 red)
+		 * @param signal
+		 *            light waves, truncated to whole nm
+		 * @return sum of the excitation rates
+		 */
+		double sum(int channel, double[] signal);
+	}
+
+	/**
+	 * Loads the vectorized excitation. The class is looked up by name, so the
+	 * classes of src compile and load without it and without the module
+	 * jdk.incubator.vector.
+	 * 
+	 * @return the vectorized excitation, or null if it is not available
+	 */
+	private static ExcitationKernel loadVectorKernel() {
+		try {
+			return (ExcitationKernel) Class.forName("VectorExcitation").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Tells whether {@link ExcitationMode#VECTOR} really uses the vector API
+	 * 
+	 * @return true if VectorExcitation was compiled and the module
+	 *         jdk.incubator.vector is available
+	 */
+	public static boolean isVectorized() {
+		return VECTOR_KERNEL != null;
+	}
+
 	/** Type of the receptor */
 	String type;
+	/** Type of the receptor as color channel (0 blue, 1 green, 2 red) */
+	final int channel;
+	/** how the excitation is computed */
+	ExcitationMode mode = ExcitationMode.ANALYTIC;
 
 	/**
 	 * Sets index and type of the photo receptor
@@ -24,15 +102,32 @@ public class Photoreceptor extends Neuron {
 	 */
 	public Photoreceptor(int index, String type) {
 		super(index);
-		if (type.equals("red")  || type.equals("green") || type.equals("blue")) {
-			this.type = type;
+		if (type.equals("blue")) {
+			this.channel = 0;
+		} else if (type.equals("green")) {
+			this.channel = 1;
+		} else if (type.equals("red")) {
+			this.channel = 2;
 		}
 		else {
 			throw new RuntimeException();
 		}
+		this.type = type;
 		this.outgoingsynapses = new ArrayList<Synapse>();
 	}
 
+	/**
+	 * Sets how the excitation of this receptor is computed. ANALYTIC and LOOKUP
+	 * give the same results; VECTOR sums the light waves in a different order
+	 * and agrees with them only up to rounding.
+	 * 
+	 * @param mode
+	 *            excitation mode
+	 */
+	public void setExcitationMode(ExcitationMode mode) {
+		this.mode = mode;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -53,27 +148,99 @@ public class Photoreceptor extends Neuron {
 	 * @return 3 dimensional neural signal
 	 */
 		public double[] excitation(int wave) {
+			double[] excitationrate = new double[3];
+			excitationrate[this.channel] = excitation(this.channel, wave, this.mode);
+			return excitationrate;
+		}
+
+		/**
+		 * Excitation of one type of photo receptor by a light wave
+		 * 
+		 * @param channel
+		 *            type of the receptor (0 blue, 1 green, 2 red)
+		 * @param wave
+		 *            light wave input
+		 * @return excitation rate of the receptor
+		 */
+		static double excitation(int channel, int wave) {
 			// Blau: e^(-(-420 + x)^2/3200)/(40 sqrt(2 π))*100
 			// Grün: e^(-(-534 + x)^2/5000)/(50 sqrt(2 π))*125
 			// Rot: e^(-(-564 + x)^2/5000)/(50 sqrt(2 π))*125
-			double[] excitationrate = new double[3];
-			if (this.type.equals("blue")) {
+			if (channel == 0) {
 				if (wave < 380 || wave > 530)
-					excitationrate[0] = 0;
-				else
-					excitationrate[0] = Math.exp(-Math.pow((-420 + wave), 2) / 3200) / (40 * Math.sqrt(2 * Math.PI)) * 100;
-			} else if (this.type.equals("green")) {
+					return 0;
+				return Math.exp(-Math.pow((-420 + wave), 2) / 3200) / (40 * Math.sqrt(2 * Math.PI)) * 100;
+			} else if (channel == 1) {
 				if (wave < 400 || wave > 750)
-					excitationrate[1] = 0;
-				else
-					excitationrate[1] = Math.exp(-Math.pow((-534 + wave), 2) / 5000) / (50 * Math.sqrt(2 * Math.PI)) * 125;
-			} else if (this.type.equals("red")) {
+					return 0;
+				return Math.exp(-Math.pow((-534 + wave), 2) / 5000) / (50 * Math.sqrt(2 * Math.PI)) * 125;
+			} else {
 				if (wave < 400 || wave > 750)
-					excitationrate[2] = 0;
-				else
-					excitationrate[2] = Math.exp(-Math.pow((-564 + wave), 2) / 5000) / (50 * Math.sqrt(2 * Math.PI)) * 125;
+					return 0;
+				return Math.exp(-Math.pow((-564 + wave), 2) / 5000) / (50 * Math.sqrt(2 * Math.PI)) * 125;
+			}
+		}
+
+		/**
+		 * Excitation of one type of photo receptor by a light wave, computed in the
+		 * given mode
+		 * 
+		 * @param channel
+		 *            type of the receptor (0 blue, 1 green, 2 red)
+		 * @param wave
+		 *            light wave input
+		 * @param mode
+		 *            excitation mode
+		 * @return excitation rate of the receptor
+		 */
+		static double excitation(int channel, int wave, ExcitationMode mode) {
+			if (mode != ExcitationMode.LOOKUP)
+				return excitation(channel, wave);
+			if (wave < MIN_WAVE || wave > MAX_WAVE)
+				return 0;
+			return EXCITATION_TABLE[channel][wave - MIN_WAVE];
+		}
+
+		/**
+		 * Sums up the excitation of one type of photo receptor over the light
+		 * waves
+		 * 
+		 * @param channel
+		 *            type of the receptor (0 blue, 1 green, 2 red)
+		 * @param signal
+		 *            light wave signal
+		 * @param mode
+		 *            excitation mode
+		 * @return sum of the excitation rates
+		 */
+		static double excitationSum(int channel, double[] signal, ExcitationMode mode) {
+			if (mode == ExcitationMode.VECTOR && VECTOR_KERNEL != null)
+				return VECTOR_KERNEL.sum(channel, signal);
+			double sum = 0;
+			for (int i = 0; i < signal.length; i++) {
+				sum = excitation(channel, (int) signal[i], mode) + sum;
+			}
+			return sum;
+		}
+
+		/**
+		 * Averages the excitation of all three types of photo receptors over the
+		 * light waves, i.e. computes the signal
+		 * {@link #integrateSignal(double[])} sends for each type, without
+		 * allocating.
+		 * 
+		 * @param signal
+		 *            light wave signal
+		 * @param colormix
+		 *            array of length 3 the averaged excitation is written to
+		 * @param mode
+		 *            excitation mode
+		 */
+		static void mix(double[] signal, double[] colormix, ExcitationMode mode) {
+			int lightmix = signal.length;
+			for (int c = 0; c < 3; c++) {
+				colormix[c] = excitationSum(c, signal, mode) / lightmix;
 			}
-			return excitationrate;
 		}
 
 		/**
@@ -90,11 +257,23 @@ public class Photoreceptor extends Neuron {
 			// transform the given wavelengths into a synaptic signal-
 			// parted into blue, green and red
 			double[] colormix = new double[3];
-			double[] temp = new double[3];
-			for (int i = 0; i < lightmix; i++) {
-				temp = excitation((int) signal[i]); // the exact wave length is not important- it is all approximated anyway
-				for (int c = 0; c < 3; c++) {
-					colormix[c] = temp[c] + colormix[c];
+			if (this.mode == ExcitationMode.VECTOR) {
+				colormix[this.channel] = excitationSum(this.channel, signal, this.mode);
+			} else if (this.mode == ExcitationMode.LOOKUP) {
+				// read the table row of the own channel, the other channels stay 0
+				double[] table = EXCITATION_TABLE[this.channel];
+				for (int i = 0; i < lightmix; i++) {
+					int wave = (int) signal[i];
+					if (wave >= MIN_WAVE && wave <= MAX_WAVE)
+						colormix[this.channel] = table[wave - MIN_WAVE] + colormix[this.channel];
+				}
+			} else {
+				double[] temp;
+				for (int i = 0; i < lightmix; i++) {
+					temp = excitation((int) signal[i]); // the exact wave length is not important- it is all approximated anyway
+					for (int c = 0; c < 3; c++) {
+						colormix[c] = temp[c] + colormix[c];
+					}
 				}
 			}
 			for (int c = 0; c < 3; c++) {
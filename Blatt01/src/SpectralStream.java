@@ -0,0 +1,177 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The class SpectralStream feeds a continuous stream of light waves into a
+ * {@link CompiledNetwork}.
+ *
+ * The light waves are grouped into windows of a fixed number of samples; each
+ * window is one light mixture, i.e. one input of
+ * {@link Network#signalprocessing(double[])}. Instead of collecting a window in
+ * an array and averaging it afterwards, the excitation of every type of photo
+ * receptor is added to a running sum as soon as a light wave arrives. All
+ * receptors of one type share their sum, because they see the same light.
+ *
+ * The color of every window is put into a bounded queue. If the consumer of the
+ * queue falls behind, putting blocks, so the stream is read no faster than the
+ * colors are consumed.
+ */
+public class SpectralStream {
+	/** the network that classifies the windows */
+	private final CompiledNetwork network;
+	/** number of light waves per window */
+	private final int window;
+	/** receives the color of every window */
+	private final BlockingQueue<String> sink;
+
+	/** accumulator of the network, the first three entries hold the running sums */
+	private final double[] acc;
+	/** neural signal of the last window */
+	private final double[] neuralSignal = new double[3];
+	/** number of light waves in the current window */
+	private int count;
+	/** number of windows classified */
+	private long windows;
+	/** allocated bytes at the first light wave of the window, only counted if metrics are enabled */
+	private long allocated;
+
+	/**
+	 * Sets up an empty stream.
+	 *
+	 * @param network
+	 *            the network that classifies the windows
+	 * @param window
+	 *            number of light waves per window
+	 * @param sink
+	 *            queue that receives the color of every window
+	 * @throws RuntimeException
+	 *             if the window is not positive
+	 */
+	public SpectralStream(CompiledNetwork network, int window, BlockingQueue<String> sink) {
+		if (window < 1)
+			throw new RuntimeException("A window needs at least one light wave.");
+		this.network = network;
+		this.window = window;
+		this.sink = sink;
+		this.acc = network.newAccumulator();
+	}
+
+	/**
+	 * Adds one light wave to the current window. Completes the window if it is
+	 * full.
+	 *
+	 * @param wave
+	 *            light wave in nm
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for space in the sink
+	 */
+	public void accept(double wave) throws InterruptedException {
+		if (NetworkMetrics.ENABLED && this.count == 0)
+			this.allocated = NetworkMetrics.allocated();
+		Photoreceptor.ExcitationMode mode = this.network.excitationMode();
+		for (int c = 0; c < 3; c++) {
+			this.acc[c] = Photoreceptor.excitation(c, (int) wave, mode) + this.acc[c];
+		}
+		if (++this.count == this.window)
+			flush();
+	}
+
+	/**
+	 * Completes the current window, even if it is not full, and puts its color
+	 * into the sink. Does nothing if the window is empty.
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for space in the sink
+	 */
+	public void flush() throws InterruptedException {
+		if (this.count == 0)
+			return;
+		for (int c = 0; c < 3; c++) {
+			this.acc[c] = this.acc[c] / this.count;
+		}
+		String color = Network.classify(this.network.transmit(this.acc, this.neuralSignal));
+		// a window is one sample, like one call of CompiledNetwork.signalprocessing
+		if (NetworkMetrics.ENABLED)
+			NetworkMetrics.sample(this.allocated);
+		this.acc[0] = this.acc[1] = this.acc[2] = 0;
+		this.count = 0;
+		this.windows++;
+		this.sink.put(color);
+	}
+
+	/**
+	 * Gets the number of windows classified so far
+	 *
+	 * @return #Windows
+	 */
+	public long windows() {
+		return this.windows;
+	}
+
+	/**
+	 * Reads light waves, stored as binary doubles (@see
+	 * DataInputStream#readDouble()), until the end of the stream. The last,
+	 * incomplete window is kept open, so reading may continue with another
+	 * stream; call {@link #flush()} to complete it.
+	 *
+	 * @param in
+	 *            stream of light waves
+	 * @return number of light waves read
+	 * @throws IOException
+	 *             if reading fails
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for space in the sink
+	 */
+	public long read(InputStream in) throws IOException, InterruptedException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		long waves = 0;
+		while (true) {
+			double wave;
+			try {
+				wave = data.readDouble();
+			} catch (EOFException e) {
+				return waves;
+			}
+			accept(wave);
+			waves++;
+		}
+	}
+
+	/**
+	 * Reads all light waves of a file of binary doubles (big-endian, as written
+	 * by {@link java.io.DataOutputStream#writeDouble(double)}). The file is
+	 * mapped into memory instead of being copied through a stream buffer.
+	 * Trailing bytes that do not form a double are ignored.
+	 *
+	 * @param file
+	 *            file of light waves
+	 * @return number of light waves read
+	 * @throws IOException
+	 *             if the file cannot be mapped
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for space in the sink
+	 */
+	public long read(Path file) throws IOException, InterruptedException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long end = channel.size() / Double.BYTES * Double.BYTES;
+			long chunk = Integer.MAX_VALUE / Double.BYTES * Double.BYTES;
+			for (long position = 0; position < end; position += chunk) {
+				ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunk, end - position));
+				DoubleBuffer waves = mapped.asDoubleBuffer();
+				while (waves.hasRemaining()) {
+					accept(waves.get());
+				}
+			}
+			return end / Double.BYTES;
+		}
+	}
+}
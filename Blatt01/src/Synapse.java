@@ -55,6 +55,8 @@ public class Synapse {
 	 * @param signal
 	 */
 	public void transmit(double[] signal) {
+		if (NetworkMetrics.ENABLED)
+			NetworkMetrics.transmissions(1);
 		this.getPost().integrateSignal(signal);
 	}
 }
@@ -0,0 +1,61 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The class VectorExcitation evaluates the response curves of the photo
+ * receptors (@see Photoreceptor#excitation(int)) for as many light waves at
+ * once as the CPU has vector lanes.
+ *
+ * It uses the incubating vector API, so it lives in its own source root and is
+ * only compiled on request, after the classes of src:
+ * <pre>
+ * javac -encoding UTF-8 -d out src/*.java
+ * javac -encoding UTF-8 --add-modules jdk.incubator.vector -cp out -d out vector/VectorExcitation.java
+ * java --add-modules jdk.incubator.vector -cp out ExcitationBenchmark
+ * </pre>
+ * Photoreceptor only loads this class by name and keeps using the scalar loop
+ * if the class or the module is missing. The sums agree with the scalar loop
+ * up to rounding, because the lanes are added up in a different order.
+ */
+class VectorExcitation implements Photoreceptor.ExcitationKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	/** center of the response curve per type of receptor */
+	private static final double[] CENTER = { 420, 534, 564 };
+	/** divisor of the squared distance to the center */
+	private static final double[] WIDTH = { 3200, 5000, 5000 };
+	/** normalization of the response curve */
+	private static final double[] NORM = { 40 * Math.sqrt(2 * Math.PI), 50 * Math.sqrt(2 * Math.PI),
+			50 * Math.sqrt(2 * Math.PI) };
+	/** maximum of the response curve */
+	private static final double[] SCALE = { 100, 125, 125 };
+	/** shortest light wave exciting each type of receptor */
+	private static final double[] LOW = { 380, 400, 400 };
+	/** longest light wave exciting each type of receptor */
+	private static final double[] HIGH = { 530, 750, 750 };
+
+	@Override
+	public double sum(int channel, double[] signal) {
+		DoubleVector sum = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(signal.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			// truncate to whole nm, like the scalar loop does with (int)
+			DoubleVector wave = (DoubleVector) DoubleVector.fromArray(SPECIES, signal, i)
+					.convert(VectorOperators.D2L, 0).convert(VectorOperators.L2D, 0);
+			DoubleVector distance = wave.sub(CENTER[channel]);
+			DoubleVector rate = distance.mul(distance).neg().div(WIDTH[channel]).lanewise(VectorOperators.EXP)
+					.div(NORM[channel]).mul(SCALE[channel]);
+			VectorMask<Double> inside = wave.compare(VectorOperators.GE, LOW[channel])
+					.and(wave.compare(VectorOperators.LE, HIGH[channel]));
+			sum = sum.add(rate, inside);
+		}
+		double result = sum.reduceLanes(VectorOperators.ADD);
+		for (; i < signal.length; i++) {
+			result = Photoreceptor.excitation(channel, (int) signal[i]) + result;
+		}
+		return result;
+	}
+}
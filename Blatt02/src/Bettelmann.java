@@ -9,6 +9,14 @@ public class Bettelmann {
     private Deque<Card> closedPile1;
     private Deque<Card> closedPile2;
     private int winner = -1;
+    /** Length of the cycle of repeated states, if the game ended by repetition, or 0 otherwise. */
+    private int cycleLength = 0;
+    /** State of the game at the last checkpoint of the repetition detection, or null if there is none. */
+    private byte[] checkpoint;
+    /** Number of rounds played by {@link #play(int)} since the checkpoint. */
+    private int distance;
+    /** Number of rounds after which the checkpoint is moved forward. */
+    private int power;
 
     /**
      * Constructor which initializes both players with empty piles.
@@ -106,6 +114,82 @@ public class Bettelmann {
         return winner;
     }
 
+    /**
+     * Returns the length of the cycle of repeated states after a draw by repetition.
+     *
+     * @return the number of rounds after which the game repeats itself, or 0 if no repetition was
+     * detected.
+     */
+    public int getCycleLength() {
+        return cycleLength;
+    }
+
+    /**
+     * Returns whether the game ended in a draw because a state repeated itself (both players
+     * holding the same cards in the same order as before). Such a game never ends.
+     *
+     * @return whether the game was ended by {@link #play(int)} as draw by repetition.
+     */
+    public boolean isDrawByRepetition() {
+        return cycleLength > 0;
+    }
+
+    /**
+     * Play up to the given number of rounds, and end the game as draw by repetition as soon as a
+     * state occurs a second time. Repetitions are found with Brent's cycle detection: the state is
+     * compared to a checkpoint, which is moved forward after 1, 2, 4, ... rounds. Hence a game that
+     * runs into a cycle ends after a number of rounds proportional to the number of rounds before
+     * and within the cycle. The detection continues across calls, so the rounds may also be played
+     * one at a time. Rounds played with {@link #playRound()} are not checked.
+     *
+     * @param maxRounds maximal number of rounds to play.
+     * @return the number of rounds played.
+     */
+    public int play(int maxRounds) {
+        if (checkpoint == null) {
+            checkpoint = encodeState();
+            distance = 0;
+            power = 1;
+        }
+        int rounds = 0;
+        while (rounds < maxRounds && winner < 0) {
+            playRound();
+            rounds++;
+            distance++;
+            if (winner >= 0)
+                break;
+            byte[] state = encodeState();
+            if (Arrays.equals(state, checkpoint)) {
+                cycleLength = distance;
+                winner = 0;
+            } else if (distance == power) {
+                checkpoint = state;
+                power *= 2;
+                distance = 0;
+            }
+        }
+        return rounds;
+    }
+
+    /**
+     * Encodes the closed piles of the players compactly: the ids of the cards of player 1, a
+     * separator and the ids of the cards of player 2.
+     *
+     * @return the state of the game
+     */
+    private byte[] encodeState() {
+        byte[] state = new byte[closedPile1.size() + closedPile2.size() + 1];
+        int i = 0;
+        for (Card card : closedPile1) {
+            state[i++] = (byte) card.getId();
+        }
+        state[i++] = -1;
+        for (Card card : closedPile2) {
+            state[i++] = (byte) card.getId();
+        }
+        return state;
+    }
+
     /**
      * Deal the given deck of cards alternately to the two players.
      * Side effect: The deck is empty after calling this method.
@@ -115,6 +199,9 @@ public class Bettelmann {
     public void distributeCards(Stack<Card> deck) {
         closedPile1.clear();
         closedPile2.clear();
+        winner = -1;
+        cycleLength = 0;
+        checkpoint = null;
         // use addFirst() because the last distributed card should be drawn first
         while (!deck.isEmpty()) {
             Card card = deck.pop();
@@ -132,7 +219,7 @@ public class Bettelmann {
     public void distributeCards() {
         Stack<Card> deck = new Stack<>();
         for (int i = 0; i < Card.nCards; i++) {
-            deck.add(new Card(i));
+            deck.add(Card.of(i));
         }
         Collections.shuffle(deck);
         distributeCards(deck);
@@ -159,7 +246,7 @@ public class Bettelmann {
         //int[] deckArray = {3,5,21,13,6,19,29,31,23,11};
         //Stack<Card> deck = new Stack<>();
         //for (int id : deckArray) {
-            //deck.push(new Card(id));
+            //deck.push(Card.of(id));
         //}
         //Bettelmann game = new Bettelmann();
         //game.distributeCards(deck);
@@ -168,10 +255,12 @@ public class Bettelmann {
         System.out.println("Initial situation (top card first):\n" + game);
         int round = 0;
         while (round < 1000000 && game.getWinner() < 0) {
-            round++;
-            game.playRound();
+            round += game.play(1);
             System.out.println("State after round " + round + ":\n" + game);
         }
+        if (game.isDrawByRepetition()) {
+            System.out.println("Draw by repetition, the game repeats itself every " + game.getCycleLength() + " rounds.");
+        }
     }
 }
 
@@ -0,0 +1,388 @@
+import java.util.Arrays;
+import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The class {@code BettelmannEnumerator} computes the exact probabilities of the outcomes of
+ * 'Bettelmann' for a small deck, by playing every order of the deck that
+ * {@link Bettelmann#distributeCards(Stack)} can deal.
+ *
+ * Since the game only compares the values of the cards, orders that differ only in the suits
+ * end the same way. So only the distinct sequences of values are played, and each of them stands
+ * for the same number of orders, namely the product of c! over the number c of cards of every
+ * value. The games are played by {@link FastBettelmann}; the outcome of every state reached is
+ * remembered in a hash table, so a game that reaches a known state is over at once. A game that
+ * reaches a state of its own past would never end and counts as draw by repetition.
+ *
+ * The sequences are split by their first values into tasks that run on a {@link ForkJoinPool}.
+ */
+public class BettelmannEnumerator {
+    /** Maximal number of cards, as a state of the game is packed into a long. */
+    public static final int MAX_CARDS = 16;
+    /** Number of values of the cards. */
+    private static final int VALUES = 8;
+    /** The sequences are split into tasks by this many first values. */
+    private static final int SPLIT_DEPTH = 2;
+
+    private final int length;
+    private final int[] counts = new int[VALUES];
+
+    /**
+     * Result of an enumeration.
+     */
+    public static class Result {
+        private final int cards;
+        private final long[] sequences;
+        private final long orders;
+
+        Result(int cards, long[] sequences, long orders) {
+            this.cards = cards;
+            this.sequences = sequences;
+            this.orders = orders;
+        }
+
+        /**
+         * Returns the number of distinct sequences of values that were played.
+         *
+         * @return number of games played
+         */
+        public long getSequences() {
+            long total = 0;
+            for (long count : sequences) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * Returns the number of orders of the deck with the given outcome.
+         *
+         * @param outcome {@link BettelmannSimulator#DRAW}, {@link BettelmannSimulator#PLAYER1},
+         *                {@link BettelmannSimulator#PLAYER2} or {@link BettelmannSimulator#REPETITION}
+         * @return number of deals, out of n! for n cards
+         */
+        public long getDeals(int outcome) {
+            return sequences[outcome] * orders;
+        }
+
+        /**
+         * Returns the probability of the given outcome for a well shuffled deck.
+         *
+         * @param outcome {@link BettelmannSimulator#DRAW}, {@link BettelmannSimulator#PLAYER1},
+         *                {@link BettelmannSimulator#PLAYER2} or {@link BettelmannSimulator#REPETITION}
+         * @return probability between 0 and 1
+         */
+        public double getProbability(int outcome) {
+            long total = getSequences();
+            return total == 0 ? 0 : (double) sequences[outcome] / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Cards: %d%nPlayer 1 wins: %.4f%%%nPlayer 2 wins: %.4f%%%nDraws: %.4f%%%n"
+                            + "Draws by repetition: %.4f%%", cards,
+                    100 * getProbability(BettelmannSimulator.PLAYER1),
+                    100 * getProbability(BettelmannSimulator.PLAYER2),
+                    100 * getProbability(BettelmannSimulator.DRAW),
+                    100 * getProbability(BettelmannSimulator.REPETITION));
+        }
+    }
+
+    /**
+     * Open addressing hash table from packed states (@see FastBettelmann#rankState()) to outcomes.
+     */
+    static final class StateTable {
+        private static final long EMPTY = -1;
+        /** The table is cleared between games once it holds this many states. */
+        private static final int MAX_SIZE = 1 << 20;
+
+        private long[] keys;
+        private byte[] values;
+        private int size;
+
+        StateTable() {
+            allocate(1 << 12);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new byte[capacity];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & (keys.length - 1);
+        }
+
+        /**
+         * Returns the value of a state.
+         *
+         * @param key packed state
+         * @return value of the state, or -1 if it is unknown
+         */
+        int get(long key) {
+            for (int i = slot(key); ; i = (i + 1) & (keys.length - 1)) {
+                if (keys[i] == key)
+                    return values[i];
+                if (keys[i] == EMPTY)
+                    return -1;
+            }
+        }
+
+        /**
+         * Sets the value of a state.
+         *
+         * @param key   packed state
+         * @param value value between 0 and 127
+         */
+        void put(long key, int value) {
+            int i = slot(key);
+            while (keys[i] != key && keys[i] != EMPTY) {
+                i = (i + 1) & (keys.length - 1);
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                if (++size * 2 > keys.length) {
+                    values[i] = (byte) value;
+                    grow();
+                    return;
+                }
+            }
+            values[i] = (byte) value;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            byte[] oldValues = values;
+            allocate(2 * oldKeys.length);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY)
+                    put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        /**
+         * Forgets all states if the table became too large.
+         */
+        void trim() {
+            if (size >= MAX_SIZE)
+                allocate(1 << 12);
+        }
+    }
+
+    /**
+     * Plays sequences of values of one task. Every task has its own player, so the table of known
+     * states can be collected as soon as the task is done.
+     */
+    private static final class Player {
+        /** Value of states that were reached by the current game, whose outcome is not known yet. */
+        private static final int PLAYING = 127;
+
+        private final int length;
+        private final FastBettelmann game = new FastBettelmann();
+        private final StateTable table = new StateTable();
+        private final int[] ids;
+        private long[] path = new long[64];
+
+        Player(int length) {
+            this.length = length;
+            this.ids = new int[length];
+        }
+
+        /**
+         * Plays a sequence of values.
+         *
+         * @param values values of the cards from the bottom to the top of the deck
+         * @return outcome of the game
+         */
+        int play(int[] values) {
+            for (int i = 0; i < length; i++) {
+                ids[i] = values[i] << 2; // a card with that value (@see Card#getId())
+            }
+            table.trim();
+            game.distributeCards(ids, length);
+            int rounds = 0;
+            int outcome;
+            while (true) {
+                long state = game.rankState();
+                int known = table.get(state);
+                if (known == PLAYING) {
+                    outcome = BettelmannSimulator.REPETITION;
+                    break;
+                } else if (known >= 0) {
+                    outcome = known;
+                    break;
+                }
+                table.put(state, PLAYING);
+                if (rounds == path.length)
+                    path = Arrays.copyOf(path, 2 * rounds);
+                path[rounds++] = state;
+                game.playRound();
+                if (game.getWinner() >= 0) {
+                    outcome = game.getWinner();
+                    break;
+                }
+            }
+            for (int i = 0; i < rounds; i++) {
+                table.put(path[i], outcome);
+            }
+            return outcome;
+        }
+    }
+
+    /**
+     * Task that plays all sequences starting with the given values.
+     */
+    private static final class Task extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final BettelmannEnumerator enumerator;
+        private final int[] remaining;
+        private final int[] values;
+        private final int depth;
+
+        Task(BettelmannEnumerator enumerator, int[] remaining, int[] values, int depth) {
+            this.enumerator = enumerator;
+            this.remaining = remaining;
+            this.values = values;
+            this.depth = depth;
+        }
+
+        @Override
+        protected long[] compute() {
+            long[] outcomes = new long[BettelmannSimulator.REPETITION + 1];
+            if (depth >= SPLIT_DEPTH || depth == enumerator.length) {
+                enumerator.enumerate(remaining, values, depth, new Player(enumerator.length), outcomes);
+                return outcomes;
+            }
+            Task[] tasks = new Task[VALUES];
+            for (int v = 0; v < VALUES; v++) {
+                if (remaining[v] > 0) {
+                    int[] values = this.values.clone();
+                    int[] remaining = this.remaining.clone();
+                    values[depth] = v;
+                    remaining[v]--;
+                    tasks[v] = new Task(enumerator, remaining, values, depth + 1);
+                    tasks[v].fork();
+                }
+            }
+            for (Task task : tasks) {
+                if (task != null) {
+                    long[] counts = task.join();
+                    for (int i = 0; i < outcomes.length; i++) {
+                        outcomes[i] += counts[i];
+                    }
+                }
+            }
+            return outcomes;
+        }
+    }
+
+    /**
+     * Prepares the enumeration of all orders of a deck.
+     *
+     * @param deck ids of the cards
+     * @throws IllegalArgumentException if there are more than {@value #MAX_CARDS} cards
+     */
+    public BettelmannEnumerator(int[] deck) {
+        if (deck.length > MAX_CARDS)
+            throw new IllegalArgumentException("Not more than " + MAX_CARDS + " cards allowed.");
+        this.length = deck.length;
+        for (int id : deck) {
+            counts[id >> 2]++;
+        }
+    }
+
+    /**
+     * Prepares the enumeration of all orders of a deck.
+     *
+     * @param deck the cards
+     * @throws IllegalArgumentException if there are more than {@value #MAX_CARDS} cards
+     */
+    public BettelmannEnumerator(Stack<Card> deck) {
+        this(deck.stream().mapToInt(Card::getId).toArray());
+    }
+
+    /**
+     * Plays all sequences with the given first values, in lexicographic order.
+     */
+    private void enumerate(int[] remaining, int[] values, int depth, Player player, long[] outcomes) {
+        if (depth == length) {
+            outcomes[player.play(values)]++;
+            return;
+        }
+        for (int v = 0; v < VALUES; v++) {
+            if (remaining[v] > 0) {
+                remaining[v]--;
+                values[depth] = v;
+                enumerate(remaining, values, depth + 1, player, outcomes);
+                remaining[v]++;
+            }
+        }
+    }
+
+    /**
+     * Plays all orders of the deck on the common pool.
+     *
+     * @return number of orders per outcome
+     */
+    public Result enumerate() {
+        return enumerate(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plays all orders of the deck.
+     *
+     * @param pool pool whose threads play the games
+     * @return number of orders per outcome
+     */
+    public Result enumerate(ForkJoinPool pool) {
+        long[] sequences = pool.invoke(new Task(this, counts.clone(), new int[length], 0));
+        long orders = 1;
+        for (int count : counts) {
+            for (int i = 2; i <= count; i++) {
+                orders *= i;
+            }
+        }
+        return new Result(length, sequences, orders);
+    }
+
+    /**
+     * Returns a deck of the given size with values as different as possible: first one card of
+     * every value, then a second one of every value, and so on.
+     *
+     * @param size number of cards
+     * @return ids of the cards
+     */
+    static int[] deck(int size) {
+        int[] deck = new int[size];
+        for (int i = 0; i < size; i++) {
+            deck[i] = (i % VALUES) * 4 + i / VALUES;
+        }
+        return deck;
+    }
+
+    public static void main(String[] args) {
+        int maxCards = args.length > 0 ? Integer.parseInt(args[0]) : 11;
+        // warm up
+        for (int i = 0; i < 5; i++) {
+            new BettelmannEnumerator(deck(8)).enumerate();
+        }
+        System.out.printf("%5s %12s %9s %9s %9s %9s %10s %14s%n", "cards", "sequences", "player 1", "player 2",
+                "draw", "loop", "ms", "sequences/s");
+        for (int n = 2; n <= maxCards; n++) {
+            long start = System.nanoTime();
+            Result result = new BettelmannEnumerator(deck(n)).enumerate();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%5d %12d %8.4f%% %8.4f%% %8.4f%% %8.4f%% %10.1f %14.0f%n", n, result.getSequences(),
+                    100 * result.getProbability(BettelmannSimulator.PLAYER1),
+                    100 * result.getProbability(BettelmannSimulator.PLAYER2),
+                    100 * result.getProbability(BettelmannSimulator.DRAW),
+                    100 * result.getProbability(BettelmannSimulator.REPETITION),
+                    1000 * seconds, result.getSequences() / seconds);
+        }
+        System.out.println("on " + ForkJoinPool.commonPool().getParallelism() + " worker threads");
+    }
+}
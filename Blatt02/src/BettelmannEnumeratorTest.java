@@ -0,0 +1,87 @@
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BettelmannEnumeratorTest {
+    static final int[] OUTCOMES = { BettelmannSimulator.DRAW, BettelmannSimulator.PLAYER1,
+            BettelmannSimulator.PLAYER2, BettelmannSimulator.REPETITION };
+
+    /**
+     * Plays every order of the given ids, generated by Heap's algorithm.
+     */
+    void playAll(int[] ids, int k, FastBettelmann game, BettelmannSimulator.Statistics statistics) {
+        if (k <= 1) {
+            game.distributeCards(ids, ids.length);
+            BettelmannSimulator.play(game, statistics);
+            return;
+        }
+        for (int i = 0; i < k - 1; i++) {
+            playAll(ids, k - 1, game, statistics);
+            int j = k % 2 == 0 ? i : 0;
+            int id = ids[j];
+            ids[j] = ids[k - 1];
+            ids[k - 1] = id;
+        }
+        playAll(ids, k - 1, game, statistics);
+    }
+
+    long factorial(int n) {
+        long factorial = 1;
+        for (int i = 2; i <= n; i++) {
+            factorial *= i;
+        }
+        return factorial;
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        for (int n = 1; n <= 7; n++) {
+            int[] deck = BettelmannEnumerator.deck(n);
+            BettelmannEnumerator.Result result = new BettelmannEnumerator(deck).enumerate();
+            BettelmannSimulator.Statistics statistics = new BettelmannSimulator.Statistics();
+            playAll(deck.clone(), n, new FastBettelmann(), statistics);
+            assertEquals(factorial(n), statistics.getGames());
+            assertEquals(0, statistics.getOutcome(BettelmannSimulator.STOPPED));
+            for (int outcome : OUTCOMES) {
+                assertEquals(statistics.getOutcome(outcome), result.getDeals(outcome), "n = " + n);
+            }
+        }
+    }
+
+    @Test
+    void testRepeatedValues() {
+        // two cards of every value: the sequences stand for 2^4 orders each
+        int[] deck = { 0, 1, 4, 5, 8, 9, 12, 13 };
+        BettelmannEnumerator.Result result = new BettelmannEnumerator(deck).enumerate();
+        BettelmannSimulator.Statistics statistics = new BettelmannSimulator.Statistics();
+        playAll(deck.clone(), deck.length, new FastBettelmann(), statistics);
+        assertEquals(factorial(deck.length) / 16, result.getSequences());
+        for (int outcome : OUTCOMES) {
+            assertEquals(statistics.getOutcome(outcome), result.getDeals(outcome));
+        }
+    }
+
+    @Test
+    void testOwnPool() {
+        int[] deck = BettelmannEnumerator.deck(9);
+        BettelmannEnumerator.Result common = new BettelmannEnumerator(deck).enumerate();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            BettelmannEnumerator.Result own = new BettelmannEnumerator(deck).enumerate(pool);
+            assertEquals(common.getSequences(), own.getSequences());
+            for (int outcome : OUTCOMES) {
+                assertEquals(common.getDeals(outcome), own.getDeals(outcome));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testTooManyCards() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BettelmannEnumerator(BettelmannEnumerator.deck(BettelmannEnumerator.MAX_CARDS + 1)));
+    }
+}
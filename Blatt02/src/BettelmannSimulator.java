@@ -0,0 +1,249 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The class {@code BettelmannSimulator} plays many shuffled games of {@link Bettelmann} and
+ * collects statistics about the winners and the length of the games. The games are distributed
+ * among worker threads, each of which shuffles with its own {@link SplittableRandom} split off
+ * a seeded master generator, so a simulation can be repeated with the same seed and number of
+ * workers.
+ */
+public class BettelmannSimulator {
+    /** Games that are still running after this number of rounds are stopped (as in {@link Bettelmann#main}). */
+    public static final int MAX_ROUNDS = 1000000;
+    /** Game lengths up to this number of rounds are counted exactly, longer games share the last bucket. */
+    public static final int HISTOGRAM_SIZE = 10000;
+
+    /** Outcome of a game in which both players ran out of cards at the same time. */
+    public static final int DRAW = 0;
+    /** Outcome of a game won by player 1. */
+    public static final int PLAYER1 = 1;
+    /** Outcome of a game won by player 2. */
+    public static final int PLAYER2 = 2;
+    /** Outcome of a game that was stopped after {@link #MAX_ROUNDS} rounds. */
+    public static final int STOPPED = 3;
+    /** Outcome of a game that was ended because a state repeated itself, so it would never end. */
+    public static final int REPETITION = 4;
+
+    /**
+     * Statistics of a number of games.
+     */
+    public static class Statistics {
+        private long games;
+        private long rounds;
+        private final long[] outcomes = new long[5];
+        private final long[] lengths = new long[HISTOGRAM_SIZE + 1];
+
+        /**
+         * Records one game.
+         *
+         * @param outcome {@link #DRAW}, {@link #PLAYER1}, {@link #PLAYER2}, {@link #STOPPED} or
+         *                {@link #REPETITION}
+         * @param rounds  number of rounds played
+         */
+        void add(int outcome, int rounds) {
+            games++;
+            this.rounds += rounds;
+            outcomes[outcome]++;
+            lengths[Math.min(rounds, HISTOGRAM_SIZE)]++;
+        }
+
+        /**
+         * Adds the games of other statistics to these.
+         *
+         * @param that the other statistics
+         */
+        void add(Statistics that) {
+            games += that.games;
+            rounds += that.rounds;
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] += that.outcomes[i];
+            }
+            for (int i = 0; i < lengths.length; i++) {
+                lengths[i] += that.lengths[i];
+            }
+        }
+
+        /**
+         * Returns the number of games.
+         *
+         * @return number of games
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Returns the number of games with the given outcome.
+         *
+         * @param outcome {@link #DRAW}, {@link #PLAYER1}, {@link #PLAYER2}, {@link #STOPPED} or
+         *                {@link #REPETITION}
+         * @return number of games with that outcome
+         */
+        public long getOutcome(int outcome) {
+            return outcomes[outcome];
+        }
+
+        /**
+         * Returns the histogram of game lengths.
+         *
+         * @return number of games per number of rounds; the last entry counts all games with at
+         * least {@link #HISTOGRAM_SIZE} rounds
+         */
+        public long[] getLengths() {
+            return lengths.clone();
+        }
+
+        /**
+         * Returns the average number of rounds per game.
+         *
+         * @return average game length
+         */
+        public double getAverageRounds() {
+            return games == 0 ? 0 : (double) rounds / games;
+        }
+
+        /**
+         * Returns the smallest number of rounds such that the given share of the games was
+         * over after that many rounds.
+         *
+         * @param quantile share of the games, between 0 and 1
+         * @return number of rounds (at most {@link #HISTOGRAM_SIZE})
+         */
+        public int getQuantile(double quantile) {
+            long count = 0;
+            for (int i = 0; i < lengths.length; i++) {
+                count += lengths[i];
+                if (count >= quantile * games) {
+                    return i;
+                }
+            }
+            return HISTOGRAM_SIZE;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Games: %d%nPlayer 1 wins: %.4f%%%nPlayer 2 wins: %.4f%%%nDraws: %.4f%%%n"
+                            + "Draws by repetition: %.4f%%%nStopped after %d rounds: %.4f%%%n"
+                            + "Average rounds: %.2f%nMedian rounds: %d%n99%% of the games within: %d rounds",
+                    games, share(PLAYER1), share(PLAYER2), share(DRAW), share(REPETITION), MAX_ROUNDS,
+                    share(STOPPED), getAverageRounds(), getQuantile(0.5), getQuantile(0.99));
+        }
+
+        private double share(int outcome) {
+            return games == 0 ? 0 : 100.0 * outcomes[outcome] / games;
+        }
+    }
+
+    /**
+     * Shuffles a complete deck of card ids.
+     *
+     * @param deck   array of length {@link Card#nCards} that is filled with the shuffled ids
+     * @param random random generator used for shuffling
+     */
+    static void shuffle(int[] deck, SplittableRandom random) {
+        for (int i = 0; i < Card.nCards; i++) {
+            deck[i] = i;
+        }
+        // Fisher-Yates shuffle
+        for (int i = Card.nCards - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int id = deck[i];
+            deck[i] = deck[j];
+            deck[j] = id;
+        }
+    }
+
+    /**
+     * Plays one game until it is over, a state repeats itself or {@link #MAX_ROUNDS} rounds were
+     * played, and records it. The game is played by {@link FastBettelmann}, which plays every round
+     * exactly like {@link Bettelmann#playRound()}.
+     *
+     * @param game       game whose cards were distributed
+     * @param statistics statistics to which the game is added
+     */
+    static void play(FastBettelmann game, Statistics statistics) {
+        int rounds = game.play(MAX_ROUNDS);
+        statistics.add(outcome(game), rounds);
+    }
+
+    /**
+     * Returns the outcome of a game that was played by {@link FastBettelmann#play(int)}.
+     *
+     * @param game the game
+     * @return {@link #DRAW}, {@link #PLAYER1}, {@link #PLAYER2}, {@link #STOPPED} or
+     * {@link #REPETITION}
+     */
+    static int outcome(FastBettelmann game) {
+        if (game.isDrawByRepetition()) {
+            return REPETITION;
+        }
+        return game.getWinner() < 0 ? STOPPED : game.getWinner();
+    }
+
+    /**
+     * Plays the given number of shuffled games with one generator.
+     *
+     * @param games  number of games
+     * @param random random generator used for shuffling
+     * @return statistics of the games
+     */
+    static Statistics simulate(long games, SplittableRandom random) {
+        Statistics statistics = new Statistics();
+        FastBettelmann game = new FastBettelmann();
+        int[] deck = new int[Card.nCards];
+        for (long i = 0; i < games; i++) {
+            shuffle(deck, random);
+            game.distributeCards(deck, deck.length);
+            play(game, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Plays the given number of shuffled games on several threads.
+     *
+     * @param games   number of games
+     * @param seed    seed of the master random generator
+     * @param workers number of worker threads
+     * @return statistics of all games
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static Statistics simulate(long games, long seed, int workers) throws InterruptedException {
+        SplittableRandom master = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Statistics>> results = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                long share = games / workers + (w < games % workers ? 1 : 0);
+                SplittableRandom random = master.split();
+                results.add(executor.submit(() -> simulate(share, random)));
+            }
+            Statistics statistics = new Statistics();
+            for (Future<Statistics> result : results) {
+                statistics.add(result.get());
+            }
+            return statistics;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        Statistics statistics = simulate(games, seed, workers);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(statistics);
+        System.out.printf("%.1f games/s on %d threads%n", games / seconds, workers);
+    }
+}
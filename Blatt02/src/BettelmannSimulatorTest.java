@@ -0,0 +1,65 @@
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BettelmannSimulatorTest {
+    static final long GAMES = 200;
+
+    long sum(long[] counts) {
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    void assertSameStatistics(BettelmannSimulator.Statistics expected, BettelmannSimulator.Statistics actual) {
+        assertEquals(expected.getGames(), actual.getGames());
+        for (int outcome = BettelmannSimulator.DRAW; outcome <= BettelmannSimulator.STOPPED; outcome++) {
+            assertEquals(expected.getOutcome(outcome), actual.getOutcome(outcome));
+        }
+        assertArrayEquals(expected.getLengths(), actual.getLengths());
+        assertEquals(expected.getAverageRounds(), actual.getAverageRounds());
+    }
+
+    @Test
+    void testSameSeedSameStatistics() throws InterruptedException {
+        BettelmannSimulator.Statistics first = BettelmannSimulator.simulate(GAMES, 7, 3);
+        BettelmannSimulator.Statistics second = BettelmannSimulator.simulate(GAMES, 7, 3);
+        assertSameStatistics(first, second);
+    }
+
+    @Test
+    void testEveryGameCounted() throws InterruptedException {
+        for (int workers = 1; workers <= 4; workers++) {
+            BettelmannSimulator.Statistics statistics = BettelmannSimulator.simulate(GAMES + workers, 11, workers);
+            assertEquals(GAMES + workers, statistics.getGames());
+            long outcomes = 0;
+            for (int outcome = BettelmannSimulator.DRAW; outcome <= BettelmannSimulator.STOPPED; outcome++) {
+                outcomes += statistics.getOutcome(outcome);
+            }
+            assertEquals(GAMES + workers, outcomes);
+            assertEquals(GAMES + workers, sum(statistics.getLengths()));
+        }
+    }
+
+    @Test
+    void testShuffledDeckIsComplete() {
+        int[] deck = new int[Card.nCards];
+        BettelmannSimulator.shuffle(deck, new SplittableRandom(3));
+        boolean[] seen = new boolean[Card.nCards];
+        for (int id : deck) {
+            assertFalse(seen[id]);
+            seen[id] = true;
+        }
+    }
+
+    @Test
+    void testQuantile() throws InterruptedException {
+        BettelmannSimulator.Statistics statistics = BettelmannSimulator.simulate(GAMES, 5, 2);
+        assertTrue(statistics.getQuantile(0.5) <= statistics.getQuantile(0.99));
+        assertTrue(statistics.getQuantile(0.99) <= BettelmannSimulator.HISTOGRAM_SIZE);
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Random;
+import java.util.Stack;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BettelmannTest {
+    /** rounds after which a game that is still running is no longer compared */
+    static final int ROUNDS = 5000;
+
+    /**
+     * Shuffles the given number of different cards.
+     */
+    Stack<Card> deck(int size, Random random) {
+        Stack<Card> deck = new Stack<>();
+        for (int i = 0; i < Card.nCards; i++) {
+            deck.push(new Card(i));
+        }
+        Collections.shuffle(deck, random);
+        deck.setSize(size);
+        return deck;
+    }
+
+    Deque<Card> pile(int... ids) {
+        Deque<Card> pile = new ArrayDeque<>();
+        for (int id : ids) {
+            pile.addLast(new Card(id));
+        }
+        return pile;
+    }
+
+    /**
+     * Plays both engines round by round and compares the piles, the winner and the detected
+     * repetition.
+     */
+    void assertSameGame(Bettelmann game, FastBettelmann fast) {
+        for (int round = 0; round < ROUNDS; round++) {
+            assertTrue(fast.hasPiles(game.getClosedPile1(), game.getClosedPile2()), "round " + round);
+            assertEquals(game.getWinner(), fast.getWinner(), "round " + round);
+            assertEquals(game.getCycleLength(), fast.getCycleLength(), "round " + round);
+            if (game.getWinner() >= 0)
+                return;
+            assertEquals(game.play(1), fast.play(1));
+        }
+    }
+
+    @Test
+    void testEnginesAgree() {
+        Random random = new Random(1);
+        for (int t = 0; t < 300; t++) {
+            Stack<Card> deck = deck(t < 50 ? 1 + random.nextInt(Card.nCards) : Card.nCards, random);
+            Stack<Card> copy = new Stack<>();
+            copy.addAll(deck);
+            Bettelmann game = new Bettelmann();
+            game.distributeCards(deck);
+            FastBettelmann fast = new FastBettelmann();
+            fast.distributeCards(copy);
+            assertTrue(copy.isEmpty());
+            assertSameGame(game, fast);
+        }
+    }
+
+    @Test
+    void testIdsDealLikeCards() {
+        Random random = new Random(2);
+        for (int size = 1; size <= Card.nCards; size++) {
+            Stack<Card> deck = deck(size, random);
+            int[] ids = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = deck.get(i).getId();
+            }
+            FastBettelmann fast = new FastBettelmann();
+            fast.distributeCards(ids, size);
+            Bettelmann game = new Bettelmann();
+            game.distributeCards(deck);
+            assertTrue(fast.hasPiles(game.getClosedPile1(), game.getClosedPile2()));
+            assertEquals((size + 1) / 2, fast.getSize1());
+            assertEquals(size / 2, fast.getSize2());
+        }
+    }
+
+    @Test
+    void testPilesConstructor() {
+        Random random = new Random(3);
+        for (int t = 0; t < 100; t++) {
+            Bettelmann dealt = new Bettelmann();
+            dealt.distributeCards(deck(Card.nCards, random));
+            Deque<Card> pile1 = dealt.getClosedPile1();
+            Deque<Card> pile2 = dealt.getClosedPile2();
+            assertSameGame(new Bettelmann(new ArrayDeque<>(pile1), new ArrayDeque<>(pile2)),
+                    new FastBettelmann(pile1, pile2));
+        }
+    }
+
+    @Test
+    void testEmptyPileIsNoRepetition() {
+        Bettelmann game = new Bettelmann(pile(3, 17), pile());
+        game.play(10);
+        assertEquals(1, game.getWinner());
+        assertFalse(game.isDrawByRepetition());
+
+        FastBettelmann fast = new FastBettelmann(pile(3, 17), pile());
+        fast.play(10);
+        assertEquals(1, fast.getWinner());
+        assertFalse(fast.isDrawByRepetition());
+    }
+
+    @Test
+    void testBothPilesEmptyIsNoRepetition() {
+        Bettelmann game = new Bettelmann(pile(), pile());
+        game.play(10);
+        assertEquals(0, game.getWinner());
+        assertFalse(game.isDrawByRepetition());
+
+        FastBettelmann fast = new FastBettelmann(pile(), pile());
+        fast.play(10);
+        assertEquals(0, fast.getWinner());
+        assertFalse(fast.isDrawByRepetition());
+    }
+
+    @Test
+    void testRepetitionEnginesAgree() {
+        // both engines end the same small game in the same way
+        Bettelmann game = new Bettelmann(pile(0, 4), pile(5, 1));
+        FastBettelmann fast = new FastBettelmann(pile(0, 4), pile(5, 1));
+        game.play(1000);
+        fast.play(1000);
+        assertEquals(game.isDrawByRepetition(), fast.isDrawByRepetition());
+        assertEquals(game.getWinner(), fast.getWinner());
+        assertEquals(game.getCycleLength(), fast.getCycleLength());
+    }
+
+    @Test
+    void testTooManyCards() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FastBettelmann().distributeCards(new int[FastBettelmann.CAPACITY + 1], FastBettelmann.CAPACITY + 1));
+    }
+}
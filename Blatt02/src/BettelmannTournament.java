@@ -0,0 +1,317 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The class {@code BettelmannTournament} plays a long series of games of 'Bettelmann' whose deals
+ * depend only on a master seed and the index of the game. The random numbers for shuffling game i
+ * are computed from (seed, i) and a counter, without any state that is carried from one game to
+ * the next. Hence the range of games can be split among any number of threads or processes, and
+ * every single game can be dealt again with {@link #dealFor(long, long)}.
+ *
+ * The outcome and length of every game is written to a binary log (all numbers big-endian):
+ * <pre>
+ * int  MAGIC
+ * int  VERSION
+ * long master seed
+ * long index of the first game
+ * long #Games n
+ * n records of RECORD bytes: byte outcome (@see BettelmannSimulator#DRAW), int rounds
+ * </pre>
+ * The record of a game is at a fixed position, so the threads write their records independently
+ * and a single game can be looked up without reading the rest of the log.
+ */
+public class BettelmannTournament {
+    /** First bytes of every log: "BTRN" */
+    static final int MAGIC = 0x4254524E;
+    /** Version of the layout */
+    static final int VERSION = 1;
+    /** Size of the header in bytes */
+    static final int HEADER = 2 * Integer.BYTES + 3 * Long.BYTES;
+    /** Size of the record of one game in bytes */
+    static final int RECORD = 1 + Integer.BYTES;
+    /** Number of records that a thread collects before writing them */
+    private static final int BATCH = 4096;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Finalizer of SplitMix64, which maps consecutive inputs to independent looking outputs.
+     *
+     * @param z input
+     * @return mixed bits
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Shuffles a complete deck of card ids for the given game. The j-th random number of game i is
+     * mix(mix(seed + i * GOLDEN_GAMMA) + j * GOLDEN_GAMMA).
+     *
+     * @param masterSeed seed of the tournament
+     * @param index      index of the game
+     * @param deck       array of length {@link Card#nCards} that is filled with the shuffled ids
+     */
+    static void deal(long masterSeed, long index, int[] deck) {
+        long gameSeed = mix(masterSeed + index * GOLDEN_GAMMA);
+        for (int i = 0; i < Card.nCards; i++) {
+            deck[i] = i;
+        }
+        // Fisher-Yates shuffle
+        for (int i = Card.nCards - 1; i > 0; i--) {
+            long random = mix(gameSeed + i * GOLDEN_GAMMA);
+            int j = (int) (((random >>> 32) * (i + 1)) >>> 32);
+            int id = deck[i];
+            deck[i] = deck[j];
+            deck[j] = id;
+        }
+    }
+
+    /**
+     * Returns the deck of the given game, e.g. to replay it with
+     * {@link Bettelmann#distributeCards(Stack)}.
+     *
+     * @param masterSeed seed of the tournament
+     * @param index      index of the game
+     * @return the deck, from the bottom to the top card
+     */
+    public static Stack<Card> dealFor(long masterSeed, long index) {
+        int[] ids = new int[Card.nCards];
+        deal(masterSeed, index, ids);
+        Stack<Card> deck = new Stack<>();
+        for (int id : ids) {
+            deck.push(Card.of(id));
+        }
+        return deck;
+    }
+
+    /**
+     * Plays a range of games of the tournament on several threads.
+     *
+     * @param masterSeed seed of the tournament
+     * @param first      index of the first game
+     * @param games      number of games
+     * @param workers    number of worker threads
+     * @param log        file to which the log is written, replaced if it exists
+     * @return statistics of the games
+     * @throws IOException          if writing the log fails
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static BettelmannSimulator.Statistics run(long masterSeed, long first, long games, int workers, Path log)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putLong(masterSeed).putLong(first).putLong(games).flip();
+            write(channel, header, 0);
+            List<Future<BettelmannSimulator.Statistics>> results = new ArrayList<>();
+            long start = 0;
+            for (int w = 0; w < workers; w++) {
+                long share = games / workers + (w < games % workers ? 1 : 0);
+                long from = start;
+                results.add(executor.submit(() -> play(masterSeed, first, from, share, channel)));
+                start += share;
+            }
+            BettelmannSimulator.Statistics statistics = new BettelmannSimulator.Statistics();
+            for (Future<BettelmannSimulator.Statistics> result : results) {
+                statistics.add(result.get());
+            }
+            return statistics;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays games first + from, ..., first + from + games - 1 and writes their records.
+     *
+     * @param from position of the first game in the log
+     */
+    private static BettelmannSimulator.Statistics play(long masterSeed, long first, long from, long games,
+                                                       FileChannel channel) throws IOException {
+        BettelmannSimulator.Statistics statistics = new BettelmannSimulator.Statistics();
+        FastBettelmann game = new FastBettelmann();
+        int[] deck = new int[Card.nCards];
+        ByteBuffer records = ByteBuffer.allocate(BATCH * RECORD);
+        long written = from;
+        for (long i = from; i < from + games; i++) {
+            deal(masterSeed, first + i, deck);
+            game.distributeCards(deck, deck.length);
+            int rounds = game.play(BettelmannSimulator.MAX_ROUNDS);
+            int outcome = BettelmannSimulator.outcome(game);
+            statistics.add(outcome, rounds);
+            records.put((byte) outcome).putInt(rounds);
+            if (!records.hasRemaining()) {
+                records.flip();
+                write(channel, records, HEADER + written * RECORD);
+                written = i + 1;
+                records.clear();
+            }
+        }
+        records.flip();
+        write(channel, records, HEADER + written * RECORD);
+        return statistics;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * A log of a tournament, opened for looking up single games.
+     */
+    public static class Log implements Closeable {
+        private final FileChannel channel;
+        private final long masterSeed;
+        private final long first;
+        private final long games;
+        private final ByteBuffer record = ByteBuffer.allocate(RECORD);
+
+        /**
+         * Opens a log.
+         *
+         * @param file log written by {@link #run(long, long, long, int, Path)}
+         * @throws IOException if reading fails or the file is not a valid log
+         */
+        public Log(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) < 0)
+                        throw new IOException("Not a tournament log: " + file);
+                }
+                header.flip();
+                if (header.getInt() != MAGIC)
+                    throw new IOException("Not a tournament log: " + file);
+                int version = header.getInt();
+                if (version != VERSION)
+                    throw new IOException("Unsupported log version " + version + ": " + file);
+                masterSeed = header.getLong();
+                first = header.getLong();
+                games = header.getLong();
+                if (games < 0 || channel.size() != HEADER + games * RECORD)
+                    throw new IOException("Corrupt tournament log: " + file);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the seed from which the deals of the games were computed.
+         *
+         * @return master seed of the tournament
+         */
+        public long getMasterSeed() {
+            return masterSeed;
+        }
+
+        /**
+         * Returns the index of the first game in the log.
+         *
+         * @return index of the first game
+         */
+        public long getFirst() {
+            return first;
+        }
+
+        /**
+         * Returns the number of games in the log.
+         *
+         * @return #Games
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Reads the outcome of a game.
+         *
+         * @param index index of the game
+         * @return {@link BettelmannSimulator#DRAW}, {@link BettelmannSimulator#PLAYER1},
+         * {@link BettelmannSimulator#PLAYER2}, {@link BettelmannSimulator#STOPPED} or
+         * {@link BettelmannSimulator#REPETITION}
+         * @throws IOException if reading fails
+         */
+        public synchronized int getOutcome(long index) throws IOException {
+            return read(index).get(0);
+        }
+
+        /**
+         * Reads the number of rounds of a game.
+         *
+         * @param index index of the game
+         * @return number of rounds played
+         * @throws IOException if reading fails
+         */
+        public synchronized int getRounds(long index) throws IOException {
+            return read(index).getInt(1);
+        }
+
+        private ByteBuffer read(long index) throws IOException {
+            if (index < first || index - first >= games)
+                throw new IndexOutOfBoundsException("Game " + index + " is not in the log.");
+            record.clear();
+            long position = HEADER + (index - first) * RECORD;
+            while (record.hasRemaining()) {
+                if (channel.read(record, position + record.position()) < 0)
+                    throw new IOException("Tournament log ends early.");
+            }
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Path file = Path.of(args.length > 3 ? args[3] : "tournament.log");
+        long start = System.nanoTime();
+        BettelmannSimulator.Statistics statistics = run(seed, 0, games, workers, file);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(statistics);
+        System.out.printf("%.1f games/s on %d threads, log written to %s%n", games / seconds, workers, file);
+
+        // replay the longest of the first 1000 games from its deal
+        if (games == 0)
+            return;
+        try (Log log = new Log(file)) {
+            long longest = 0;
+            for (long i = 1; i < Math.min(games, 1000); i++) {
+                if (log.getRounds(i) > log.getRounds(longest))
+                    longest = i;
+            }
+            Bettelmann game = new Bettelmann();
+            game.distributeCards(dealFor(seed, longest));
+            int rounds = game.play(BettelmannSimulator.MAX_ROUNDS);
+            System.out.printf("Game %d: %d rounds in the log, %d rounds replayed, winner %d%n", longest,
+                    log.getRounds(longest), rounds, game.getWinner());
+        }
+    }
+}
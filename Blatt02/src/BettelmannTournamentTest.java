@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BettelmannTournamentTest {
+    static final long SEED = 9;
+    static final long FIRST = 5;
+    /** more games per thread than the records of one batch */
+    static final long GAMES = 9000;
+
+    Path tempLog() throws IOException {
+        Path file = Files.createTempFile("tournament", ".log");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    @Test
+    void testReplay() throws IOException, InterruptedException {
+        Path file = tempLog();
+        BettelmannSimulator.Statistics statistics = BettelmannTournament.run(SEED, FIRST, GAMES, 2, file);
+        assertEquals(GAMES, statistics.getGames());
+        try (BettelmannTournament.Log log = new BettelmannTournament.Log(file)) {
+            assertEquals(SEED, log.getMasterSeed());
+            assertEquals(FIRST, log.getFirst());
+            assertEquals(GAMES, log.getGames());
+            long[] outcomes = new long[BettelmannSimulator.REPETITION + 1];
+            for (long i = FIRST; i < FIRST + GAMES; i++) {
+                outcomes[log.getOutcome(i)]++;
+            }
+            for (int outcome = 0; outcome < outcomes.length; outcome++) {
+                assertEquals(statistics.getOutcome(outcome), outcomes[outcome]);
+            }
+            Random random = new Random(1);
+            for (int k = 0; k < 50; k++) {
+                long i = k == 0 ? FIRST : k == 1 ? FIRST + GAMES - 1 : FIRST + random.nextInt((int) GAMES);
+                Bettelmann game = new Bettelmann();
+                game.distributeCards(BettelmannTournament.dealFor(SEED, i));
+                int rounds = game.play(BettelmannSimulator.MAX_ROUNDS);
+                int outcome = game.isDrawByRepetition() ? BettelmannSimulator.REPETITION
+                        : game.getWinner() < 0 ? BettelmannSimulator.STOPPED : game.getWinner();
+                assertEquals(log.getRounds(i), rounds, "game " + i);
+                assertEquals(log.getOutcome(i), outcome, "game " + i);
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> log.getOutcome(FIRST - 1));
+            assertThrows(IndexOutOfBoundsException.class, () -> log.getRounds(FIRST + GAMES));
+        }
+    }
+
+    @Test
+    void testWorkersWriteSameLog() throws IOException, InterruptedException {
+        Path one = tempLog();
+        Path three = tempLog();
+        BettelmannSimulator.Statistics expected = BettelmannTournament.run(SEED, FIRST, GAMES, 1, one);
+        BettelmannSimulator.Statistics actual = BettelmannTournament.run(SEED, FIRST, GAMES, 3, three);
+        for (int outcome = 0; outcome <= BettelmannSimulator.REPETITION; outcome++) {
+            assertEquals(expected.getOutcome(outcome), actual.getOutcome(outcome));
+        }
+        assertArrayEquals(expected.getLengths(), actual.getLengths());
+        assertArrayEquals(Files.readAllBytes(one), Files.readAllBytes(three));
+    }
+
+    @Test
+    void testDealsDependOnIndexOnly() {
+        int[] deck = new int[Card.nCards];
+        BettelmannTournament.deal(SEED, 12345, deck);
+        assertEquals(BettelmannTournament.dealFor(SEED, 12345).toString(), toDeck(deck));
+        boolean[] seen = new boolean[Card.nCards];
+        for (int id : deck) {
+            assertFalse(seen[id]);
+            seen[id] = true;
+        }
+        int[] other = new int[Card.nCards];
+        BettelmannTournament.deal(SEED, 12346, other);
+        assertNotEquals(toDeck(deck), toDeck(other));
+    }
+
+    String toDeck(int[] ids) {
+        StringBuilder deck = new StringBuilder("[");
+        for (int i = 0; i < ids.length; i++) {
+            deck.append(i == 0 ? "" : ", ").append(Card.of(ids[i]));
+        }
+        return deck.append(']').toString();
+    }
+
+    @Test
+    void testInvalidLog() throws IOException, InterruptedException {
+        Path file = tempLog();
+        BettelmannTournament.run(SEED, 0, 10, 1, file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        ByteBuffer.wrap(bytes).putInt(0, 0x12345678);
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new BettelmannTournament.Log(file));
+
+        ByteBuffer.wrap(bytes).putInt(0, BettelmannTournament.MAGIC);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> new BettelmannTournament.Log(file));
+
+        Files.write(file, Arrays.copyOf(bytes, 3));
+        assertThrows(IOException.class, () -> new BettelmannTournament.Log(file));
+    }
+}
@@ -5,16 +5,61 @@ import java.util.Objects;
  * This class is used in the class {@link Bettelmann}, which simulates the card game 'Bettelmann'.
  */
 public class Card implements Comparable<Card> {
-    private int id;
+    private final byte id;
+    /** Value of the card, i.e. id / 4 (@see #getValue()). */
+    private final byte value;
+    /** Short String representation (@see #toString()). */
+    private final String string;
     public static int nCards = 32;
 
+    //private static final String[] SUITS = {"Karo", "Herz", "Pik", "Kreuz"};
+    private static final String[] SUITS = {"\u2666", "\u2665", "\u2660", "\u2663"};
+    //private static final String[] VALUES = {"Sieben", "Acht", "Neun", "Zehn", "Bube", "Dame", "König", "As"};
+    private static final String[] VALUES = {"7", "8", "9", "10", "B", "D", "K", "A"};
+    /** The 32 cards of the deck, shared by all users of {@link #of(int)}. */
+    private static final Card[] CARDS = new Card[32];
+
+    static {
+        for (int id = 0; id < CARDS.length; id++) {
+            CARDS[id] = new Card(id);
+        }
+    }
+
     /**
      * Constructor of {@code Card} objects
      *
      * @param id The id of the card from 0 (7 diamond) to 31 (ace of clubs)
+     * @throws IllegalArgumentException if the id is not between 0 and 31
      */
     public Card(int id) {
-        this.id = id;
+        if (id < 0 || id >= CARDS.length)
+            throw new IllegalArgumentException("No card with id " + id + ".");
+        this.id = (byte) id;
+        this.value = (byte) (id / 4);
+        this.string = SUITS[id % 4] + VALUES[value];
+    }
+
+    /**
+     * Returns the card with the given id. Cards are immutable, so instead of creating a new card
+     * every time, the same instance is returned for the same id.
+     *
+     * @param id The id of the card from 0 (7 diamond) to 31 (ace of clubs)
+     * @return the card
+     * @throws IllegalArgumentException if the id is not between 0 and 31
+     */
+    public static Card of(int id) {
+        if (id < 0 || id >= CARDS.length)
+            throw new IllegalArgumentException("No card with id " + id + ".");
+        return CARDS[id];
+    }
+
+    /**
+     * Returns the id of this card.
+     *
+     * @return id of the card from 0 (7 diamond) to 31 (ace of clubs)
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -23,9 +68,7 @@ public class Card implements Comparable<Card> {
      * @return unicode symbol of the suit of this card
      */
     public String getSuit() {
-        //String[] suitList = {"Karo", "Herz", "Pik", "Kreuz"};
-        String[] suitList = {"\u2666", "\u2665", "\u2660", "\u2663"};
-        return suitList[id%4];
+        return SUITS[id % 4];
     }
 
     /**
@@ -34,7 +77,7 @@ public class Card implements Comparable<Card> {
      * @return value of this card, i.e., the rank minus 7
      */
     public int getValue() {
-        return id / 4;
+        return value;
     }
 
     /**
@@ -43,9 +86,7 @@ public class Card implements Comparable<Card> {
      * @return Value of the card as short String
      */
     public String getValueAsString() {
-//        String[] valueList = {"Sieben", "Acht", "Neun", "Zehn", "Bube", "Dame", "König", "As"};
-        String[] valueList = {"7", "8", "9", "10", "B", "D", "K", "A"};
-        return valueList[getValue()];
+        return VALUES[value];
     }
 
     /**
@@ -56,7 +97,7 @@ public class Card implements Comparable<Card> {
      */
     @Override
     public int compareTo(Card that) {
-        return Integer.compare(this.getValue(), that.getValue());
+        return this.value - that.value;
     }
 
     /**
@@ -66,7 +107,7 @@ public class Card implements Comparable<Card> {
      */
     @Override
     public String toString() {
-        return getSuit() + getValueAsString();
+        return string;
     }
 
     /**
@@ -83,9 +124,19 @@ public class Card implements Comparable<Card> {
         return id == that.id;
     }
 
+    /**
+     * Returns a hash code that is consistent with {@link #equals(Object)}.
+     *
+     * @return the id of this card
+     */
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
     public static void main(String[] args) {
         for (int id = 0; id < nCards; id++) {
-            Card card = new Card(id);
+            Card card = Card.of(id);
             System.out.println("ID = " + id + " -> " + card);
         }
     }
@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class CardTest {
+
+    @Test
+    void testOfSharesInstances() {
+        for (int id = 0; id < Card.nCards; id++) {
+            assertSame(Card.of(id), Card.of(id));
+            assertEquals(id, Card.of(id).getId());
+        }
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        for (int id = 0; id < Card.nCards; id++) {
+            Card card = new Card(id);
+            assertNotSame(Card.of(id), card);
+            assertEquals(Card.of(id), card);
+            assertEquals(Card.of(id).hashCode(), card.hashCode());
+            for (int other = 0; other < Card.nCards; other++) {
+                assertEquals(id == other, card.equals(Card.of(other)));
+            }
+        }
+        assertFalse(Card.of(0).equals(null));
+    }
+
+    @Test
+    void testValueAndString() {
+        assertEquals("\u26667", Card.of(0).toString());
+        assertEquals("\u2663A", Card.of(31).toString());
+        assertEquals("\u266510", Card.of(13).toString());
+        for (int id = 0; id < Card.nCards; id++) {
+            Card card = Card.of(id);
+            assertEquals(id / 4, card.getValue());
+            assertEquals(card.getSuit() + card.getValueAsString(), card.toString());
+            assertEquals(Integer.signum(id / 4 - 3), Integer.signum(card.compareTo(Card.of(12))));
+        }
+    }
+
+    @Test
+    void testInvalidId() {
+        assertThrows(IllegalArgumentException.class, () -> Card.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> Card.of(32));
+        assertThrows(IllegalArgumentException.class, () -> new Card(-1));
+        assertThrows(IllegalArgumentException.class, () -> new Card(32));
+    }
+}
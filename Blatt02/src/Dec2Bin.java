@@ -1,7 +1,13 @@
+import java.math.BigInteger;
 import java.util.Stack;
 
 /**
  * A class for constructing a Decimal-to-Binary Number- Converter; * contains a main method for demonstration.
+ * <p>
+ * Besides the stack based conversion of {@code int}, the static methods convert {@code long} and
+ * {@link BigInteger} numbers directly into character buffers, without boxing the digits. Negative
+ * numbers are written in two's complement: 64 digits for {@code long}, and for {@code BigInteger}
+ * the shortest form with a leading sign digit 1.
  */
 public class Dec2Bin {
 
@@ -54,6 +60,138 @@ public class Dec2Bin {
         return binString.toString();
     }
 
+    /**
+     * Returns the number of binary digits of the given number.
+     *
+     * @param n the number
+     * @return number of digits without leading zeros (at least 1), or 64 for negative numbers
+     */
+    public static int binaryLength(long n) {
+        return n < 0 ? Long.SIZE : Math.max(1, Long.SIZE - Long.numberOfLeadingZeros(n));
+    }
+
+    /**
+     * Returns the number of binary digits of the given number.
+     *
+     * @param n the number
+     * @return number of digits without leading zeros (at least 1), or for negative numbers the
+     * number of digits of the shortest two's complement including the sign digit
+     */
+    public static int binaryLength(BigInteger n) {
+        return n.signum() < 0 ? n.bitLength() + 1 : Math.max(1, n.bitLength());
+    }
+
+    /**
+     * Writes the given number in binary format into a buffer.
+     *
+     * @param n      the number that is to be converted
+     * @param buffer buffer with space for {@link #binaryLength(long)} characters from the offset
+     * @param offset position of the first digit in the buffer
+     * @return position after the last digit
+     */
+    public static int toBinary(long n, char[] buffer, int offset) {
+        for (int i = binaryLength(n) - 1; i >= 0; i--) {
+            buffer[offset++] = (char) ('0' + ((n >>> i) & 1));
+        }
+        return offset;
+    }
+
+    /**
+     * Writes the given number in binary format as ASCII characters into a buffer.
+     *
+     * @param n      the number that is to be converted
+     * @param buffer buffer with space for {@link #binaryLength(long)} bytes from the offset
+     * @param offset position of the first digit in the buffer
+     * @return position after the last digit
+     */
+    public static int toBinary(long n, byte[] buffer, int offset) {
+        for (int i = binaryLength(n) - 1; i >= 0; i--) {
+            buffer[offset++] = (byte) ('0' + ((n >>> i) & 1));
+        }
+        return offset;
+    }
+
+    /**
+     * Writes the given number in binary format into a buffer.
+     *
+     * @param n      the number that is to be converted
+     * @param buffer buffer with space for {@link #binaryLength(BigInteger)} characters from the offset
+     * @param offset position of the first digit in the buffer
+     * @return position after the last digit
+     */
+    public static int toBinary(BigInteger n, char[] buffer, int offset) {
+        // big-endian two's complement, which has room for the sign digit
+        byte[] bytes = n.toByteArray();
+        for (int i = binaryLength(n) - 1; i >= 0; i--) {
+            buffer[offset++] = (char) ('0' + ((bytes[bytes.length - 1 - (i >>> 3)] >>> (i & 7)) & 1));
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the given number in binary format.
+     *
+     * @param n the number that is to be converted
+     * @return a string representation of the number in binary format
+     */
+    public static String toBinaryString(long n) {
+        char[] buffer = new char[binaryLength(n)];
+        toBinary(n, buffer, 0);
+        return new String(buffer);
+    }
+
+    /**
+     * Returns the given number in binary format.
+     *
+     * @param n the number that is to be converted
+     * @return a string representation of the number in binary format
+     */
+    public static String toBinaryString(BigInteger n) {
+        char[] buffer = new char[binaryLength(n)];
+        toBinary(n, buffer, 0);
+        return new String(buffer);
+    }
+
+    /**
+     * Converts a batch of numbers into one buffer, one number per line.
+     *
+     * @param numbers the numbers that are to be converted
+     * @return the binary formats of the numbers, each followed by '\n'
+     */
+    public static char[] toBinary(long[] numbers) {
+        int length = 0;
+        for (long n : numbers) {
+            length += binaryLength(n) + 1;
+        }
+        char[] buffer = new char[length];
+        int offset = 0;
+        for (long n : numbers) {
+            offset = toBinary(n, buffer, offset);
+            buffer[offset++] = '\n';
+        }
+        return buffer;
+    }
+
+    /**
+     * Converts a batch of numbers into one buffer, one number per line.
+     *
+     * @param numbers the numbers that are to be converted
+     * @return the binary formats of the numbers, each followed by '\n'
+     */
+    public static char[] toBinary(BigInteger[] numbers) {
+        int length = 0;
+        for (BigInteger n : numbers) {
+            length += binaryLength(n) + 1;
+        }
+        char[] buffer = new char[length];
+        int offset = 0;
+        for (BigInteger n : numbers) {
+            offset = toBinary(n, buffer, offset);
+            buffer[offset++] = '\n';
+        }
+        return buffer;
+    }
+
     public static void main(String[] args) {
         Dec2Bin dec2bin = new Dec2Bin();
         dec2bin.convert(2);
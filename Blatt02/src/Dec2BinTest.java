@@ -0,0 +1,94 @@
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class Dec2BinTest {
+
+    /**
+     * Two's complement of a negative number with the given number of digits.
+     */
+    String twosComplement(BigInteger n, int digits) {
+        return n.add(BigInteger.ONE.shiftLeft(digits)).toString(2);
+    }
+
+    @Test
+    void testLong() {
+        assertEquals("0", Dec2Bin.toBinaryString(0L));
+        assertEquals("1", Dec2Bin.toBinaryString(1L));
+        assertEquals("1".repeat(64), Dec2Bin.toBinaryString(-1L));
+        assertEquals("1" + "0".repeat(63), Dec2Bin.toBinaryString(Long.MIN_VALUE));
+        assertEquals("1".repeat(63), Dec2Bin.toBinaryString(Long.MAX_VALUE));
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            long n = random.nextLong() >> random.nextInt(64);
+            assertEquals(Long.toBinaryString(n), Dec2Bin.toBinaryString(n));
+        }
+    }
+
+    @Test
+    void testLongAsBytes() {
+        Random random = new Random(2);
+        byte[] buffer = new byte[Long.SIZE + 2];
+        for (int i = 0; i < 1000; i++) {
+            long n = random.nextLong() >> random.nextInt(64);
+            int end = Dec2Bin.toBinary(n, buffer, 2);
+            assertEquals(2 + Dec2Bin.binaryLength(n), end);
+            assertEquals(Long.toBinaryString(n), new String(buffer, 2, end - 2, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void testBigInteger() {
+        assertEquals("0", Dec2Bin.toBinaryString(BigInteger.ZERO));
+        assertEquals("1", Dec2Bin.toBinaryString(BigInteger.valueOf(-1)));
+        assertEquals("10", Dec2Bin.toBinaryString(BigInteger.valueOf(-2)));
+        assertEquals("101", Dec2Bin.toBinaryString(BigInteger.valueOf(-3)));
+        assertEquals("10000000", Dec2Bin.toBinaryString(BigInteger.valueOf(-128)));
+        assertEquals("101111111", Dec2Bin.toBinaryString(BigInteger.valueOf(-129)));
+        assertEquals("11111111", Dec2Bin.toBinaryString(BigInteger.valueOf(255)));
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            BigInteger n = new BigInteger(1 + random.nextInt(300), random);
+            assertEquals(n.toString(2), Dec2Bin.toBinaryString(n));
+            BigInteger negative = n.negate().subtract(BigInteger.ONE);
+            String binary = Dec2Bin.toBinaryString(negative);
+            assertEquals(negative.bitLength() + 1, binary.length());
+            assertEquals(twosComplement(negative, binary.length()), binary);
+        }
+    }
+
+    @Test
+    void testBigIntegerMatchesLong() {
+        // both need all 64 digits
+        assertEquals(Dec2Bin.toBinaryString(Long.MIN_VALUE), Dec2Bin.toBinaryString(BigInteger.valueOf(Long.MIN_VALUE)));
+        assertEquals(Dec2Bin.toBinaryString(Long.MAX_VALUE), Dec2Bin.toBinaryString(BigInteger.valueOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testBatch() {
+        long[] numbers = { 5, 0, -1, Long.MIN_VALUE, 1L << 40 };
+        StringBuilder expected = new StringBuilder();
+        for (long n : numbers) {
+            expected.append(Long.toBinaryString(n)).append('\n');
+        }
+        assertEquals(expected.toString(), new String(Dec2Bin.toBinary(numbers)));
+
+        BigInteger[] big = { BigInteger.TEN, BigInteger.valueOf(-2), BigInteger.ONE.shiftLeft(100) };
+        assertEquals("1010\n10\n1" + "0".repeat(100) + "\n", new String(Dec2Bin.toBinary(big)));
+        assertEquals(0, Dec2Bin.toBinary(new long[0]).length);
+    }
+
+    @Test
+    void testConvert() {
+        Dec2Bin dec2bin = new Dec2Bin();
+        for (int n : new int[] { 0, 1, 2, 7, 8, 255, 1000, Integer.MAX_VALUE }) {
+            dec2bin.convert(n);
+            assertEquals(n, dec2bin.getN());
+            assertEquals(Integer.toBinaryString(n), dec2bin.toString());
+        }
+    }
+}
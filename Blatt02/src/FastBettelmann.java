@@ -0,0 +1,362 @@
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Stack;
+
+/**
+ * The class {@code FastBettelmann} plays the card game 'Bettelmann' exactly like {@link Bettelmann},
+ * round by round, but without objects: the closed piles of the players are ring buffers of card
+ * ids, and the open piles are arrays that are reused in every round. Playing a round allocates
+ * nothing, which makes this class suitable for simulating many games.
+ */
+public class FastBettelmann {
+    /** Capacity of every pile, i.e. the number of cards of a complete deck. */
+    static final int CAPACITY = 32;
+    private static final int MASK = CAPACITY - 1;
+
+    /** Closed piles as ring buffers of card ids; the top card is at the head. */
+    private final byte[] closedPile1 = new byte[CAPACITY];
+    private final byte[] closedPile2 = new byte[CAPACITY];
+    private int head1;
+    private int head2;
+    private int size1;
+    private int size2;
+    /** Open piles of the current round, from the first drawn card to the last. */
+    private final int[] openPile1 = new int[CAPACITY];
+    private final int[] openPile2 = new int[CAPACITY];
+    private int winner = -1;
+    /** Length of the cycle of repeated states, if the game ended by repetition, or 0 otherwise. */
+    private int cycleLength;
+    /** Piles at the checkpoint of the repetition detection: player 1 from 0, player 2 from CAPACITY. */
+    private final byte[] checkpoint = new byte[2 * CAPACITY];
+    private int checkpointSize1 = -1;
+    private int checkpointSize2;
+    /** Number of rounds played by {@link #play(int)} since the checkpoint. */
+    private int distance;
+    /** Number of rounds after which the checkpoint is moved forward. */
+    private int power;
+
+    /**
+     * Constructor which initializes both players with empty piles.
+     */
+    public FastBettelmann() {
+    }
+
+    /**
+     * Constructor which initializes both players with copies of the provided piles of cards.
+     *
+     * @param pile1 pile of cards of player 1 (top card first).
+     * @param pile2 pile of cards of player 2 (top card first).
+     * @throws IllegalArgumentException if there are more than {@value #CAPACITY} cards
+     */
+    public FastBettelmann(Deque<Card> pile1, Deque<Card> pile2) {
+        if (pile1.size() + pile2.size() > CAPACITY)
+            throw new IllegalArgumentException("Not more than " + CAPACITY + " cards allowed.");
+        for (Card card : pile1) {
+            closedPile1[size1++] = (byte) card.getId();
+        }
+        for (Card card : pile2) {
+            closedPile2[size2++] = (byte) card.getId();
+        }
+    }
+
+    /**
+     * Returns the value of a card id (@see Card#getValue()).
+     *
+     * @param id id of the card
+     * @return value of the card
+     */
+    private static int value(int id) {
+        return id >> 2;
+    }
+
+    /**
+     * Play one round of the game, with the same result as {@link Bettelmann#playRound()}.
+     */
+    public void playRound() {
+        int drawn = 0;
+        do {
+            if (size1 == 0 && size2 == 0) {
+                winner = 0;
+                break;
+            } else if (size1 == 0) {
+                winner = 2;
+                break;
+            } else if (size2 == 0) {
+                winner = 1;
+                break;
+            }
+            openPile1[drawn] = closedPile1[head1];
+            head1 = (head1 + 1) & MASK;
+            size1--;
+            openPile2[drawn] = closedPile2[head2];
+            head2 = (head2 + 1) & MASK;
+            size2--;
+            drawn++;
+        } while (value(openPile1[drawn - 1]) == value(openPile2[drawn - 1]));
+        if (drawn > 0) {
+            int comparison = value(openPile1[drawn - 1]) - value(openPile2[drawn - 1]);
+            if (comparison < 0) { // Player 2 wins the round
+                for (int i = 0; i < drawn; i++) {
+                    closedPile2[(head2 + size2++) & MASK] = (byte) openPile2[i];
+                }
+                for (int i = 0; i < drawn; i++) {
+                    closedPile2[(head2 + size2++) & MASK] = (byte) openPile1[i];
+                }
+            } else if (comparison > 0) { // Player 1 wins the round
+                for (int i = 0; i < drawn; i++) {
+                    closedPile1[(head1 + size1++) & MASK] = (byte) openPile1[i];
+                }
+                for (int i = 0; i < drawn; i++) {
+                    closedPile1[(head1 + size1++) & MASK] = (byte) openPile2[i];
+                }
+            }
+        }
+        if (size1 == 0 && size2 == 0) {
+            winner = 0;
+        } else if (size1 == 0) {
+            winner = 2;
+        } else if (size2 == 0) {
+            winner = 1;
+        }
+    }
+
+    /**
+     * Returns the winner of the game after the end, or -1 during the game.
+     *
+     * @return the winner of game (1 or 2), 0 if both players ran out of cards at once,
+     * or -1 while the game is ongoing.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns the length of the cycle of repeated states after a draw by repetition.
+     *
+     * @return the number of rounds after which the game repeats itself, or 0 if no repetition was
+     * detected.
+     */
+    public int getCycleLength() {
+        return cycleLength;
+    }
+
+    /**
+     * Returns whether the game ended in a draw because a state repeated itself.
+     *
+     * @return whether the game was ended by {@link #play(int)} as draw by repetition.
+     */
+    public boolean isDrawByRepetition() {
+        return cycleLength > 0;
+    }
+
+    /**
+     * Play up to the given number of rounds, and end the game as draw by repetition as soon as a
+     * state occurs a second time, like {@link Bettelmann#play(int)}.
+     *
+     * @param maxRounds maximal number of rounds to play.
+     * @return the number of rounds played.
+     */
+    public int play(int maxRounds) {
+        if (checkpointSize1 < 0) {
+            saveCheckpoint();
+            distance = 0;
+            power = 1;
+        }
+        int rounds = 0;
+        while (rounds < maxRounds && winner < 0) {
+            playRound();
+            rounds++;
+            distance++;
+            if (winner >= 0)
+                break;
+            if (atCheckpoint()) {
+                cycleLength = distance;
+                winner = 0;
+            } else if (distance == power) {
+                saveCheckpoint();
+                power *= 2;
+                distance = 0;
+            }
+        }
+        return rounds;
+    }
+
+    private void saveCheckpoint() {
+        for (int i = 0; i < size1; i++) {
+            checkpoint[i] = closedPile1[(head1 + i) & MASK];
+        }
+        for (int i = 0; i < size2; i++) {
+            checkpoint[CAPACITY + i] = closedPile2[(head2 + i) & MASK];
+        }
+        checkpointSize1 = size1;
+        checkpointSize2 = size2;
+    }
+
+    private boolean atCheckpoint() {
+        if (size1 != checkpointSize1 || size2 != checkpointSize2)
+            return false;
+        for (int i = 0; i < size1; i++) {
+            if (checkpoint[i] != closedPile1[(head1 + i) & MASK])
+                return false;
+        }
+        for (int i = 0; i < size2; i++) {
+            if (checkpoint[CAPACITY + i] != closedPile2[(head2 + i) & MASK])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Deal the given deck of cards alternately to the two players, like
+     * {@link Bettelmann#distributeCards(Stack)}.
+     * Side effect: The deck is empty after calling this method.
+     *
+     * @param deck The deck of cards that is distributed to the players.
+     * @throws IllegalArgumentException if there are more than {@value #CAPACITY} cards
+     */
+    public void distributeCards(Stack<Card> deck) {
+        if (deck.size() > CAPACITY)
+            throw new IllegalArgumentException("Not more than " + CAPACITY + " cards allowed.");
+        int[] ids = new int[deck.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = deck.get(i).getId();
+        }
+        deck.clear();
+        distributeCards(ids, ids.length);
+    }
+
+    /**
+     * Deal the given deck of card ids alternately to the two players, like
+     * {@link Bettelmann#distributeCards(Stack)}. The last card of the deck is dealt first.
+     *
+     * @param deck   ids of the cards, from the bottom to the top of the deck.
+     * @param length number of cards in the deck
+     * @throws IllegalArgumentException if there are more than {@value #CAPACITY} cards
+     */
+    public void distributeCards(int[] deck, int length) {
+        if (length > CAPACITY)
+            throw new IllegalArgumentException("Not more than " + CAPACITY + " cards allowed.");
+        winner = -1;
+        cycleLength = 0;
+        checkpointSize1 = -1;
+        size1 = (length + 1) / 2;
+        size2 = length / 2;
+        head1 = 0;
+        head2 = 0;
+        // the last distributed card is drawn first: player 1 gets cards length-1, length-3, ...
+        // and the first of them ends up at the bottom of the pile
+        for (int i = 0; i < size1; i++) {
+            closedPile1[size1 - 1 - i] = (byte) deck[length - 1 - 2 * i];
+        }
+        for (int i = 0; i < size2; i++) {
+            closedPile2[size2 - 1 - i] = (byte) deck[length - 2 - 2 * i];
+        }
+    }
+
+    /**
+     * Returns the number of cards in the closed pile of player 1.
+     *
+     * @return number of cards of player 1
+     */
+    public int getSize1() {
+        return size1;
+    }
+
+    /**
+     * Returns the number of cards in the closed pile of player 2.
+     *
+     * @return number of cards of player 2
+     */
+    public int getSize2() {
+        return size2;
+    }
+
+    /**
+     * Packs the ranks of the cards in the closed piles into a long: 5 bits each for the number of
+     * cards of the players, followed by 3 bits per card (player 1 top to bottom, then player 2).
+     * Since the game only compares ranks, games with the same packed state proceed the same way.
+     * Only possible with at most 16 cards.
+     *
+     * @return the packed state
+     */
+    long rankState() {
+        long state = size1 << 5 | size2;
+        for (int i = 0; i < size1; i++) {
+            state = state << 3 | value(closedPile1[(head1 + i) & MASK]);
+        }
+        for (int i = 0; i < size2; i++) {
+            state = state << 3 | value(closedPile2[(head2 + i) & MASK]);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the ids of the closed pile of player 1.
+     *
+     * @return card ids, top card first
+     */
+    public int[] getClosedPile1() {
+        return toArray(closedPile1, head1, size1);
+    }
+
+    /**
+     * Returns the ids of the closed pile of player 2.
+     *
+     * @return card ids, top card first
+     */
+    public int[] getClosedPile2() {
+        return toArray(closedPile2, head2, size2);
+    }
+
+    private static int[] toArray(byte[] pile, int head, int size) {
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = pile[(head + i) & MASK];
+        }
+        return ids;
+    }
+
+    /**
+     * Returns whether the closed piles hold the same cards as the given piles, in the same order.
+     *
+     * @param pile1 pile of cards of player 1 (top card first).
+     * @param pile2 pile of cards of player 2 (top card first).
+     * @return whether the game is in the given state
+     */
+    public boolean hasPiles(Deque<Card> pile1, Deque<Card> pile2) {
+        return samePile(closedPile1, head1, size1, pile1) && samePile(closedPile2, head2, size2, pile2);
+    }
+
+    private static boolean samePile(byte[] pile, int head, int size, Deque<Card> cards) {
+        if (size != cards.size())
+            return false;
+        Iterator<Card> iterator = cards.iterator();
+        for (int i = 0; i < size; i++) {
+            if (pile[(head + i) & MASK] != iterator.next().getId())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a String representation of closed piles of cards of the two players, in the same
+     * format as {@link Bettelmann#toString()}.
+     *
+     * @return String representation of the state of the game.
+     */
+    @Override
+    public String toString() {
+        return "Player 1: " + pileToString(closedPile1, head1, size1)
+                + "\nPlayer 2: " + pileToString(closedPile2, head2, size2);
+    }
+
+    private static String pileToString(byte[] pile, int head, int size) {
+        StringBuilder string = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                string.append(", ");
+            string.append(Card.of(pile[(head + i) & MASK]));
+        }
+        return string.append(']').toString();
+    }
+}
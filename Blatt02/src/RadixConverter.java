@@ -0,0 +1,376 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The class {@code RadixConverter} converts files of decimal {@code long} numbers, separated by
+ * whitespace, into another base from 2 to 36, one number per line.
+ * <p>
+ * The input file is memory-mapped in chunks of {@value #CHUNK} bytes, which are converted in
+ * parallel. A number belongs to the chunk in which its first digit lies, so no number is split
+ * between chunks. The converted chunks are written to the output channel in the order of the
+ * input, each with a single write of its whole buffer.
+ * <p>
+ * In fixed width, every number is written as unsigned 64-bit number (i.e. negative numbers in
+ * two's complement, as {@link Dec2Bin#toBinary(long, char[], int)} does for base 2), padded with
+ * leading zeros to the number of digits of the largest one. In variable width, numbers are written
+ * with sign and without leading zeros, like {@link Long#toString(long, int)}.
+ */
+public class RadixConverter {
+    /** Nominal size of the chunks of the input in bytes. */
+    static final int CHUNK = 1 << 20;
+    /** Maximal number of characters of a number in the input. */
+    static final int MAX_TOKEN = 64;
+    private static final byte[] DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    private final int radix;
+    private final boolean fixedWidth;
+    private final int threads;
+    /** Number of digits of the largest unsigned 64-bit number in the base. */
+    private final int width;
+    /** Number of bits per digit if the base is a power of two, or 0 otherwise. */
+    private final int shift;
+
+    /**
+     * Converted numbers of one chunk.
+     */
+    private static final class Output {
+        byte[] bytes = new byte[CHUNK];
+        int length;
+        long count;
+    }
+
+    /**
+     * Constructor of a converter that uses one thread per processor.
+     *
+     * @param radix      base of the output, from 2 to 36
+     * @param fixedWidth whether the numbers are written unsigned with leading zeros
+     * @throws IllegalArgumentException if the base is not supported
+     */
+    public RadixConverter(int radix, boolean fixedWidth) {
+        this(radix, fixedWidth, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor of a converter.
+     *
+     * @param radix      base of the output, from 2 to 36
+     * @param fixedWidth whether the numbers are written unsigned with leading zeros
+     * @param threads    number of threads that convert chunks
+     * @throws IllegalArgumentException if the base is not supported or there are no threads
+     */
+    public RadixConverter(int radix, boolean fixedWidth, int threads) {
+        if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX)
+            throw new IllegalArgumentException("Base " + radix + " not supported.");
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed.");
+        this.radix = radix;
+        this.fixedWidth = fixedWidth;
+        this.threads = threads;
+        this.width = Long.toUnsignedString(-1, radix).length();
+        this.shift = Integer.bitCount(radix) == 1 ? Integer.numberOfTrailingZeros(radix) : 0;
+    }
+
+    /**
+     * Returns the number of digits of every number in fixed width.
+     *
+     * @return number of digits of the largest unsigned 64-bit number
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Converts a file of decimal numbers.
+     *
+     * @param input  file of decimal numbers, separated by whitespace
+     * @param output file to write, replaced if it exists
+     * @return number of converted numbers
+     * @throws IOException if reading or writing fails, or the input contains something else than
+     *                     numbers in the range of {@code long}
+     */
+    public long convert(Path input, Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return convert(input, channel);
+        }
+    }
+
+    /**
+     * Converts a file of decimal numbers.
+     *
+     * @param input  file of decimal numbers, separated by whitespace
+     * @param output channel to which the converted numbers are written, one per line
+     * @return number of converted numbers
+     * @throws IOException if reading or writing fails, or the input contains something else than
+     *                     numbers in the range of {@code long}
+     */
+    public long convert(Path input, WritableByteChannel output) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long count = 0;
+            // at most two chunks per thread are in memory at once
+            ArrayDeque<Future<Output>> pending = new ArrayDeque<>();
+            for (long begin = 0; begin < size || !pending.isEmpty(); ) {
+                if (begin < size && pending.size() < 2 * threads) {
+                    long start = begin;
+                    pending.add(executor.submit(() -> convertChunk(channel, start)));
+                    begin += CHUNK;
+                } else {
+                    Output chunk = pending.remove().get();
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk.bytes, 0, chunk.length);
+                    while (buffer.hasRemaining()) {
+                        output.write(buffer);
+                    }
+                    count += chunk.count;
+                }
+            }
+            return count;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting " + input, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Converts the numbers that start in a chunk of the input.
+     *
+     * @param channel the input file
+     * @param begin   position of the chunk in the file
+     * @return the converted numbers
+     * @throws IOException if reading fails or the chunk contains something else than numbers
+     */
+    private Output convertChunk(FileChannel channel, long begin) throws IOException {
+        long size = channel.size();
+        // one byte before the chunk tells whether it starts in the middle of a number
+        long from = Math.max(0, begin - 1);
+        long to = Math.min(size, begin + CHUNK + MAX_TOKEN);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        int end = (int) (Math.min(size, begin + CHUNK) - from);
+        Output output = new Output();
+        byte[] digits = new byte[Long.SIZE + 1];
+        for (int p = (int) (begin - from); p < end; p++) {
+            if (isWhitespace(buffer.get(p)) || (p > 0 && !isWhitespace(buffer.get(p - 1))))
+                continue;
+            int q = p;
+            while (q < buffer.limit() && !isWhitespace(buffer.get(q))) {
+                q++;
+            }
+            if (q - p > MAX_TOKEN)
+                throw new IOException("Number too long at byte " + (from + p));
+            long n = parse(buffer, p, q, from);
+            if (output.length + digits.length + 1 > output.bytes.length)
+                output.bytes = Arrays.copyOf(output.bytes, 2 * output.bytes.length);
+            output.length = fixedWidth ? formatFixed(n, output.bytes, output.length)
+                    : formatVariable(n, output.bytes, output.length, digits);
+            output.bytes[output.length++] = '\n';
+            output.count++;
+            p = q;
+        }
+        return output;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Parses a decimal number like {@link Long#parseLong(String)}.
+     *
+     * @param buffer the input
+     * @param p      position of the first character
+     * @param q      position after the last character
+     * @param from   position of the buffer in the file, for error messages
+     * @return the number
+     * @throws IOException if the characters are no number in the range of {@code long}
+     */
+    private static long parse(ByteBuffer buffer, int p, int q, long from) throws IOException {
+        boolean negative = buffer.get(p) == '-';
+        int i = negative || buffer.get(p) == '+' ? p + 1 : p;
+        if (i == q)
+            throw new IOException("Not a number at byte " + (from + p));
+        // accumulate negatively, which also covers Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long n = 0;
+        for (; i < q; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9)
+                throw new IOException("Not a number at byte " + (from + p));
+            if (n < limit / 10 || n * 10 < limit + digit)
+                throw new IOException("Number out of range at byte " + (from + p));
+            n = n * 10 - digit;
+        }
+        return negative ? n : -n;
+    }
+
+    /**
+     * Writes a number unsigned with leading zeros.
+     *
+     * @return position after the last digit
+     */
+    private int formatFixed(long n, byte[] out, int pos) {
+        int end = pos + width;
+        for (int i = end - 1; i >= pos; i--) {
+            if (shift > 0) {
+                out[i] = DIGITS[(int) (n & (radix - 1))];
+                n >>>= shift;
+            } else if (n < 0) {
+                long quotient = Long.divideUnsigned(n, radix);
+                out[i] = DIGITS[(int) (n - quotient * radix)];
+                n = quotient;
+            } else {
+                out[i] = DIGITS[(int) (n % radix)];
+                n /= radix;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Writes a number with sign and without leading zeros.
+     *
+     * @return position after the last digit
+     */
+    private int formatVariable(long n, byte[] out, int pos, byte[] digits) {
+        if (n < 0)
+            out[pos++] = '-';
+        int count = 0;
+        if (shift > 0) {
+            // the magnitude as unsigned number, which also covers Long.MIN_VALUE
+            long u = n < 0 ? -n : n;
+            do {
+                digits[count++] = DIGITS[(int) (u & (radix - 1))];
+                u >>>= shift;
+            } while (u != 0);
+        } else {
+            // digits from the last one, negatively to cover Long.MIN_VALUE
+            long m = n < 0 ? n : -n;
+            do {
+                digits[count++] = DIGITS[(int) -(m % radix)];
+                m /= radix;
+            } while (m != 0);
+        }
+        while (count > 0) {
+            out[pos++] = digits[--count];
+        }
+        return pos;
+    }
+
+    /**
+     * Writes random numbers to a file, one per line.
+     */
+    private static void generate(Path file, int numbers, boolean negative, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < numbers; i++) {
+                writer.write(Integer.toString(negative ? random.nextInt() : random.nextInt(Integer.MAX_VALUE)));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Converts the numbers of a file with {@link Dec2Bin#convert(int)} and
+     * {@link Dec2Bin#toString()}.
+     */
+    private static void convertWithStack(Path input, Path output) throws IOException {
+        Dec2Bin dec2bin = new Dec2Bin();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.US_ASCII);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                dec2bin.convert(Integer.parseInt(line));
+                writer.write(dec2bin.toString());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Converts the numbers of a file with {@link Dec2Bin#toBinary(long, byte[], int)} on one
+     * thread.
+     */
+    private static void convertWithBuffer(Path input, Path output) throws IOException {
+        byte[] line = new byte[Long.SIZE + 1];
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.US_ASCII);
+             OutputStream stream = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+            for (String number = reader.readLine(); number != null; number = reader.readLine()) {
+                int length = Dec2Bin.toBinary(Long.parseLong(number), line, 0);
+                line[length++] = '\n';
+                stream.write(line, 0, length);
+            }
+        }
+    }
+
+    private static double measure(String name, Path input, long bytes, int numbers, Callable<?> run)
+            throws Exception {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            run.call();
+            best = Math.min(best, (System.nanoTime() - start) / 1e9);
+        }
+        System.out.printf("%-30s %8.1f ms %10.1f MB/s %14.0f numbers/s%n", name, 1000 * best,
+                bytes / best / 1e6, numbers / best);
+        return best;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numbers = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        Path input = Files.createTempFile("numbers", ".txt");
+        Path output = Files.createTempFile("converted", ".txt");
+        try {
+            // non-negative ints, which Dec2Bin.convert(int) can handle
+            generate(input, numbers, false, 42);
+            long bytes = Files.size(input);
+            System.out.printf("%d numbers, %d bytes, %d threads%n", numbers, bytes,
+                    Runtime.getRuntime().availableProcessors());
+            double stack = measure("Dec2Bin stack", input, bytes, numbers, () -> {
+                convertWithStack(input, output);
+                return null;
+            });
+            measure("Dec2Bin buffer", input, bytes, numbers, () -> {
+                convertWithBuffer(input, output);
+                return null;
+            });
+            for (int radix : new int[]{2, 8, 16, 10, 36}) {
+                RadixConverter variable = new RadixConverter(radix, false);
+                double time = measure("RadixConverter base " + radix, input, bytes, numbers,
+                        () -> variable.convert(input, output));
+                RadixConverter fixed = new RadixConverter(radix, true);
+                measure("RadixConverter base " + radix + " fixed", input, bytes, numbers,
+                        () -> fixed.convert(input, output));
+                if (radix == 2)
+                    System.out.printf("speedup over Dec2Bin stack: %.1f%n", stack / time);
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+}
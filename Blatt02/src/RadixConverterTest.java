@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class RadixConverterTest {
+    static final String WHITESPACE = " \n\t\r";
+
+    /** numbers of the input, in the order of the file */
+    final List<Long> numbers = new ArrayList<>();
+
+    void append(StringBuilder text, long n) {
+        text.append(n);
+        numbers.add(n);
+    }
+
+    /**
+     * Writes random numbers, separated by mixed whitespace, to a file that spans three chunks. One
+     * number crosses the end of the first chunk, and another one starts exactly at the second.
+     */
+    Path input() throws IOException {
+        Random random = new Random(1);
+        StringBuilder text = new StringBuilder();
+        text.append("  ");
+        append(text, Long.MIN_VALUE);
+        text.append('\n');
+        append(text, Long.MAX_VALUE);
+        while (text.length() < 2 * RadixConverter.CHUNK + 1000) {
+            for (int k = 1 + random.nextInt(3); k > 0; k--) {
+                text.append(WHITESPACE.charAt(random.nextInt(WHITESPACE.length())));
+            }
+            if (text.length() > RadixConverter.CHUNK - 40 && text.length() < RadixConverter.CHUNK - 3) {
+                text.append(" ".repeat(RadixConverter.CHUNK - 3 - text.length()));
+                append(text, Long.MIN_VALUE);
+            } else if (text.length() > 2 * RadixConverter.CHUNK - 40 && text.length() < 2 * RadixConverter.CHUNK) {
+                text.append("\t".repeat(2 * RadixConverter.CHUNK - text.length()));
+                append(text, -1);
+            } else {
+                append(text, random.nextLong() >> random.nextInt(64));
+            }
+        }
+        text.append('\n');
+        Path file = Files.createTempFile("numbers", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    List<String> convert(Path input, RadixConverter converter) throws IOException {
+        Path output = Files.createTempFile("converted", ".txt");
+        output.toFile().deleteOnExit();
+        assertEquals(numbers.size(), converter.convert(input, output));
+        return Files.readAllLines(output, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testVariableWidth() throws IOException {
+        Path input = input();
+        for (int radix : new int[] { 16, 10, 36 }) {
+            List<String> lines = convert(input, new RadixConverter(radix, false, 3));
+            assertEquals(numbers.size(), lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                assertEquals(Long.toString(numbers.get(i), radix), lines.get(i));
+                assertEquals((long) numbers.get(i), Long.parseLong(lines.get(i), radix));
+            }
+        }
+    }
+
+    @Test
+    void testFixedWidth() throws IOException {
+        Path input = input();
+        for (int radix : new int[] { 16, 10, 2 }) {
+            RadixConverter converter = new RadixConverter(radix, true, 3);
+            List<String> lines = convert(input, converter);
+            assertEquals(numbers.size(), lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                assertEquals(converter.getWidth(), lines.get(i).length());
+                assertEquals((long) numbers.get(i), Long.parseUnsignedLong(lines.get(i), radix));
+            }
+        }
+    }
+
+    @Test
+    void testOneThread() throws IOException {
+        Path input = input();
+        assertEquals(convert(input, new RadixConverter(16, false, 3)), convert(input, new RadixConverter(16, false, 1)));
+    }
+
+    @Test
+    void testInvalidInput() throws IOException {
+        RadixConverter converter = new RadixConverter(16, false, 1);
+        for (String text : new String[] { "1 2x 3", "-", "9223372036854775808", "-9223372036854775809" }) {
+            Path input = Files.createTempFile("numbers", ".txt");
+            input.toFile().deleteOnExit();
+            Files.write(input, text.getBytes(StandardCharsets.US_ASCII));
+            Path output = Files.createTempFile("converted", ".txt");
+            output.toFile().deleteOnExit();
+            assertThrows(IOException.class, () -> converter.convert(input, output), text);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new RadixConverter(37, false));
+        assertThrows(IllegalArgumentException.class, () -> new RadixConverter(16, false, 0));
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the derangements of a permutation, which computes them on demand
+ * in the order of {@link Derangements#forEach(int[], Consumer)}.
+ * A spliterator covers the derangements that start with a fixed prefix, followed by
+ * a position from a range; it is split by dividing that range.
+ * The first part goes to the new spliterator, together with the cursor if the traversal has started.
+ * Unless copies are requested, the spliterator passes the same array to every action.
+ *
+ */
+public class DerangementSpliterator implements Spliterator<int[]> {
+	private final int[] original;
+	private final boolean copy;
+	/** positions in original of the fixed first values */
+	private int[] prefix;
+	private int floor;
+	private int first;
+	private int bound;
+	/** cursor over the covered derangements, created at the first call of tryAdvance */
+	private Derangements.Cursor cursor;
+
+	/**
+	 * Spliterator over all derangements.
+	 * @param original the permutation.
+	 * @param copy whether every derangement is passed as a new array.
+	 */
+	public DerangementSpliterator(int[] original, boolean copy) {
+		this(original, copy, new int[0], 0, 0, original.length);
+	}
+
+	private DerangementSpliterator(int[] original, boolean copy, int[] prefix, int floor, int first, int bound) {
+		if (original.length > Derangements.MAX_LENGTH)
+			throw new IllegalArgumentException("Not more than " + Derangements.MAX_LENGTH + " elements allowed.");
+		this.original = original;
+		this.copy = copy;
+		this.prefix = prefix;
+		this.floor = floor;
+		this.first = first;
+		this.bound = bound;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super int[]> action) {
+		if (cursor == null)
+			cursor = new Derangements.Cursor(original, prefix, floor, first, bound);
+		if (!cursor.advance())
+			return false;
+		action.accept(copy ? cursor.values.clone() : cursor.values);
+		return true;
+	}
+
+	/**
+	 * Positions that may follow the prefix at position floor, from the given one to bound.
+	 */
+	private long candidates(int from) {
+		long used = 0;
+		for (int k = 0; k < floor; k++) {
+			used |= 1L << prefix[k];
+		}
+		if (from >= bound)
+			return 0;
+		return ~used & ~(1L << floor) & (-1L << from) & ((1L << bound) - 1);
+	}
+
+	@Override
+	public Spliterator<int[]> trySplit() {
+		if (cursor != null) {
+			// the positions after the current one at floor can be split off
+			if (cursor.finished || !cursor.started || floor >= original.length)
+				return null;
+			return split(candidates(cursor.index[floor] + 1));
+		}
+		while (floor < original.length) {
+			long candidates = candidates(first);
+			if (Long.bitCount(candidates) != 1)
+				return split(candidates);
+			// a single candidate: fix it and split at the next position
+			prefix = Arrays.copyOf(prefix, floor + 1);
+			prefix[floor] = Long.numberOfTrailingZeros(candidates);
+			floor++;
+			first = 0;
+			bound = original.length;
+		}
+		return null;
+	}
+
+	/**
+	 * Gives the lower half of the candidates at position floor, including the derangements
+	 * the cursor has not reached yet, to a new spliterator, as the order requires.
+	 */
+	private Spliterator<int[]> split(long candidates) {
+		int count = Long.bitCount(candidates);
+		if (count < 2 && (cursor == null || count < 1))
+			return null;
+		// skip the lower half of the candidates
+		for (int i = 0; i < count / 2; i++) {
+			candidates &= candidates - 1;
+		}
+		int middle = Long.numberOfTrailingZeros(candidates);
+		DerangementSpliterator lower = new DerangementSpliterator(original, copy, prefix, floor, first, middle);
+		if (cursor != null) {
+			cursor.bound = middle;
+			lower.cursor = cursor;
+			cursor = null;
+		}
+		first = middle;
+		return lower;
+	}
+
+	/**
+	 * Estimates the number of derangements as (#candidates) * (remaining positions)! / e.
+	 */
+	@Override
+	public long estimateSize() {
+		if (cursor != null && cursor.finished)
+			return 0;
+		int n = original.length;
+		if (floor >= n)
+			return cursor == null ? 1 : 0;
+		long candidates = Long.bitCount(candidates(cursor == null ? first : cursor.index[floor]));
+		double size = candidates;
+		for (int i = 2; i < n - floor; i++) {
+			size *= i;
+		}
+		if (n - floor > 1)
+			size /= Math.E;
+		return size >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(1, (long) size);
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+}
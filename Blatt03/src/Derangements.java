@@ -0,0 +1,474 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Generates the derangements of a permutation without recursion and without lists.
+ * The positions that are already used are kept in a bitmask, the chosen positions
+ * in an int stack, so finding the next candidate takes constant time.
+ * The derangements come in the same order as from {@link Permutation#backtracking(java.util.LinkedList)}.
+ *
+ */
+public final class Derangements {
+	/** Maximal length of the permutation, as the used positions are kept in a long. */
+	public static final int MAX_LENGTH = 63;
+	/** Maximal length for ranking, as the number of derangements has to fit into a long. */
+	public static final int MAX_RANK_LENGTH = 20;
+	/** The parallel enumeration splits the derangements by this many first values. */
+	static final int SPLIT_DEPTH = 2;
+
+	private Derangements() {
+	}
+
+	/**
+	 * Passes every derangement of the permutation to the consumer.
+	 * The consumer always gets the same array, which is overwritten by the next derangement;
+	 * it has to copy the array if it keeps it.
+	 * @param original the permutation.
+	 * @param action consumer of the derangements.
+	 */
+	public static void forEach(int[] original, Consumer<int[]> action) {
+		Cursor cursor = new Cursor(original);
+		while (cursor.advance()) {
+			action.accept(cursor.values);
+		}
+	}
+
+	/**
+	 * Counts the derangements of n elements with the recurrence D(n) = (n - 1) (D(n - 1) + D(n - 2)).
+	 * @param n number of elements.
+	 * @return number of derangements, D(0) = 1.
+	 * @throws ArithmeticException if the number does not fit into a long, i.e. for n > {@value #MAX_RANK_LENGTH}.
+	 */
+	public static long count(int n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Negative length " + n + ".");
+		long previous = 1; // D(0)
+		long current = 0; // D(1)
+		if (n == 0)
+			return previous;
+		for (int i = 2; i <= n; i++) {
+			long next = Math.multiplyExact(i - 1, Math.addExact(current, previous));
+			previous = current;
+			current = next;
+		}
+		return current;
+	}
+
+	/**
+	 * Counts the derangements of n elements with the recurrence D(n) = (n - 1) (D(n - 1) + D(n - 2)).
+	 * @param n number of elements.
+	 * @return number of derangements, D(0) = 1.
+	 */
+	public static BigInteger countExact(int n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Negative length " + n + ".");
+		BigInteger previous = BigInteger.ONE;
+		BigInteger current = BigInteger.ZERO;
+		if (n == 0)
+			return previous;
+		for (int i = 2; i <= n; i++) {
+			BigInteger next = current.add(previous).multiply(BigInteger.valueOf(i - 1));
+			previous = current;
+			current = next;
+		}
+		return current;
+	}
+
+	/**
+	 * Counts the ways to complete a derangement: completions[m][f] is the number of ways to fill m positions
+	 * with m values, if f of the positions must not get their own value (inclusion-exclusion:
+	 * completions[m][f] = completions[m][f - 1] - completions[m - 1][f - 1], completions[m][0] = m!).
+	 * @param n largest m.
+	 * @return the table.
+	 */
+	private static long[][] completions(int n) {
+		long[][] completions = new long[n + 1][];
+		long factorial = 1;
+		for (int m = 0; m <= n; m++) {
+			if (m > 0)
+				factorial *= m;
+			completions[m] = new long[m + 1];
+			completions[m][0] = factorial;
+			for (int f = 1; f <= m; f++) {
+				completions[m][f] = completions[m][f - 1] - completions[m - 1][f - 1];
+			}
+		}
+		return completions;
+	}
+
+	private static void checkRankLength(int n) {
+		if (n > MAX_RANK_LENGTH)
+			throw new IllegalArgumentException("Not more than " + MAX_RANK_LENGTH + " elements allowed.");
+	}
+
+	/**
+	 * Returns the derangement with the given rank in the order of {@link #forEach(int[], Consumer)},
+	 * which is the lexicographic order of the positions in original, without walking through the ones before it.
+	 * Takes O(n^2) steps.
+	 * @param original the permutation.
+	 * @param rank rank from 0 to {@code count(original.length) - 1}.
+	 * @return the derangement.
+	 */
+	public static int[] unrank(int[] original, long rank) {
+		int n = original.length;
+		checkRankLength(n);
+		if (rank < 0 || rank >= count(n))
+			throw new IndexOutOfBoundsException("No derangement with rank " + rank + ".");
+		long[][] completions = completions(n);
+		int[] derangement = new int[n];
+		long used = 0;
+		// number of later positions whose own value is still free
+		int free = n - 1;
+		for (int k = 0; k < n; k++) {
+			for (int c = 0; c < n; c++) {
+				if (c == k || (used & 1L << c) != 0)
+					continue;
+				int f = c > k ? free - 1 : free;
+				long count = completions[n - k - 1][f];
+				if (rank < count) {
+					derangement[k] = original[c];
+					used |= 1L << c;
+					free = f;
+					break;
+				}
+				rank -= count;
+			}
+			// position k + 1 is no longer a later position
+			if (k + 1 < n && (used & 1L << (k + 1)) == 0)
+				free--;
+		}
+		return derangement;
+	}
+
+	/**
+	 * Returns the rank of a derangement in the order of {@link #forEach(int[], Consumer)}.
+	 * Takes O(n^2) steps.
+	 * @param original the permutation.
+	 * @param derangement a derangement of original.
+	 * @return rank from 0 to {@code count(original.length) - 1}.
+	 */
+	public static long rank(int[] original, int[] derangement) {
+		int n = original.length;
+		checkRankLength(n);
+		if (derangement.length != n)
+			throw new IllegalArgumentException("Not a derangement of the permutation.");
+		long[][] completions = completions(n);
+		long rank = 0;
+		long used = 0;
+		int free = n - 1;
+		for (int k = 0; k < n; k++) {
+			int index = 0;
+			while (index < n && original[index] != derangement[k]) {
+				index++;
+			}
+			if (index == n || index == k || (used & 1L << index) != 0)
+				throw new IllegalArgumentException("Not a derangement of the permutation.");
+			for (int c = 0; c < index; c++) {
+				if (c != k && (used & 1L << c) == 0)
+					rank += completions[n - k - 1][c > k ? free - 1 : free];
+			}
+			if (index > k)
+				free--;
+			used |= 1L << index;
+			if (k + 1 < n && (used & 1L << (k + 1)) == 0)
+				free--;
+		}
+		return rank;
+	}
+
+	/**
+	 * Draws a derangement of the permutation uniformly at random.
+	 * Shuffles the positions with Fisher-Yates from the back, where every position is final once it is drawn,
+	 * and starts again as soon as a position gets its own value. As a shuffle is a derangement with
+	 * probability about 1/e, this takes O(n) expected steps.
+	 * @param original the permutation.
+	 * @param random random generator.
+	 * @param derangement array of length n, which is filled with the derangement.
+	 * @param positions array of length n for the shuffled positions.
+	 */
+	private static void sample(int[] original, SplittableRandom random, int[] derangement, int[] positions) {
+		int n = original.length;
+		if (n == 1)
+			throw new IllegalArgumentException("A single element has no derangement.");
+		shuffle:
+		while (true) {
+			for (int i = 0; i < n; i++) {
+				positions[i] = i;
+			}
+			for (int i = n - 1; i >= 0; i--) {
+				int j = random.nextInt(i + 1);
+				int position = positions[j];
+				if (position == i)
+					continue shuffle;
+				positions[j] = positions[i];
+				positions[i] = position;
+			}
+			break;
+		}
+		for (int i = 0; i < n; i++) {
+			derangement[i] = original[positions[i]];
+		}
+	}
+
+	/**
+	 * Draws a derangement of the permutation uniformly at random.
+	 * @param original the permutation.
+	 * @param random random generator.
+	 * @return the derangement.
+	 */
+	public static int[] sample(int[] original, SplittableRandom random) {
+		int[] derangement = new int[original.length];
+		sample(original, random, derangement, new int[original.length]);
+		return derangement;
+	}
+
+	/**
+	 * Fills every row of {@code derangements} with a derangement of the permutation, drawn uniformly at random.
+	 * The same seed always gives the same derangements.
+	 * @param original the permutation.
+	 * @param seed seed of the random generator.
+	 * @param derangements arrays of length n, which are overwritten.
+	 */
+	public static void sample(int[] original, long seed, int[][] derangements) {
+		SplittableRandom random = new SplittableRandom(seed);
+		int[] positions = new int[original.length];
+		for (int[] derangement : derangements) {
+			if (derangement.length != original.length)
+				throw new IllegalArgumentException("Every row needs length " + original.length + ".");
+			sample(original, random, derangement, positions);
+		}
+	}
+
+	/**
+	 * Counts the derangements of the permutation by enumerating them on the common pool.
+	 * @param original the permutation.
+	 * @return number of derangements.
+	 */
+	public static long countParallel(int[] original) {
+		return forEachParallel(original, null, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Passes every derangement of the permutation to a consumer, in parallel.
+	 * The derangements are split by their first {@value #SPLIT_DEPTH} values into tasks, and every task
+	 * walks through its part with its own cursor and passes them to its own consumer from {@code shards},
+	 * so the consumers do not have to be thread-safe. As in {@link #forEach(int[], Consumer)},
+	 * a consumer always gets the same array.
+	 * @param original the permutation.
+	 * @param shards supplier of a consumer per task, or null to count only.
+	 * @param pool pool that runs the tasks.
+	 * @return number of derangements.
+	 */
+	public static long forEachParallel(int[] original, Supplier<? extends Consumer<int[]>> shards, ForkJoinPool pool) {
+		if (original.length > MAX_LENGTH)
+			throw new IllegalArgumentException("Not more than " + MAX_LENGTH + " elements allowed.");
+		return pool.invoke(new Task(original, new int[0], 0, shards));
+	}
+
+	/**
+	 * Task that walks through the derangements with the given first values.
+	 */
+	private static final class Task extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] original;
+		private final int[] prefix;
+		private final long used;
+		private final Supplier<? extends Consumer<int[]>> shards;
+
+		Task(int[] original, int[] prefix, long used, Supplier<? extends Consumer<int[]>> shards) {
+			this.original = original;
+			this.prefix = prefix;
+			this.used = used;
+			this.shards = shards;
+		}
+
+		@Override
+		protected Long compute() {
+			int depth = prefix.length;
+			if (depth >= SPLIT_DEPTH || depth >= original.length) {
+				Cursor cursor = new Cursor(original, prefix, depth, 0, original.length);
+				Consumer<int[]> action = shards == null ? null : shards.get();
+				long count = 0;
+				while (cursor.advance()) {
+					if (action != null)
+						action.accept(cursor.values);
+					count++;
+				}
+				return count;
+			}
+			Task[] tasks = new Task[original.length];
+			for (int c = 0; c < original.length; c++) {
+				if (c != depth && (used & 1L << c) == 0) {
+					int[] next = Arrays.copyOf(prefix, depth + 1);
+					next[depth] = c;
+					tasks[c] = new Task(original, next, used | 1L << c, shards);
+					tasks[c].fork();
+				}
+			}
+			long count = 0;
+			for (Task task : tasks) {
+				if (task != null)
+					count += task.join();
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Returns an iterator that computes the derangements of the permutation on demand.
+	 * @param original the permutation.
+	 * @param copy whether every derangement is a new array; otherwise the same array is overwritten by the next one.
+	 * @return iterator over the derangements.
+	 */
+	public static Iterator<int[]> iterator(int[] original, boolean copy) {
+		return Spliterators.iterator(new DerangementSpliterator(original, copy));
+	}
+
+	/**
+	 * Returns a stream that computes the derangements of the permutation on demand.
+	 * A parallel stream splits the derangements by their first values.
+	 * Without copies, every thread overwrites its own array, so the derangements must not be kept.
+	 * @param original the permutation.
+	 * @param copy whether every derangement is a new array.
+	 * @param parallel whether the stream is parallel.
+	 * @return stream of the derangements.
+	 */
+	public static Stream<int[]> stream(int[] original, boolean copy, boolean parallel) {
+		return StreamSupport.stream(new DerangementSpliterator(original, copy), parallel);
+	}
+
+	/**
+	 * Walks through the derangements one by one.
+	 * The positions before {@code floor} are fixed, and at position {@code floor} only
+	 * the positions below {@code bound} are tried, so a cursor can walk through a part of all derangements.
+	 */
+	static final class Cursor {
+		final int[] original;
+		final int n;
+		/** index[k] is the position in original of the value at position k */
+		final int[] index;
+		/** the current derangement */
+		final int[] values;
+		/** bit i is set if original[i] is used */
+		long used;
+		final int floor;
+		int bound;
+		/** first candidate at position floor before the first call of advance */
+		private final int first;
+		boolean started;
+		boolean finished;
+
+		/**
+		 * Cursor over all derangements.
+		 * @param original the permutation.
+		 */
+		Cursor(int[] original) {
+			this(original, new int[0], 0, 0, original.length);
+		}
+
+		/**
+		 * Cursor over the derangements with the given prefix.
+		 * @param original the permutation.
+		 * @param prefix positions in original of the first values, which have to be valid for a derangement.
+		 * @param floor number of fixed values.
+		 * @param first smallest position that is tried at position floor.
+		 * @param bound positions from bound on are not tried at position floor.
+		 */
+		Cursor(int[] original, int[] prefix, int floor, int first, int bound) {
+			if (original.length > MAX_LENGTH)
+				throw new IllegalArgumentException("Not more than " + MAX_LENGTH + " elements allowed.");
+			this.original = original;
+			this.n = original.length;
+			this.index = new int[n];
+			this.values = new int[n];
+			this.floor = floor;
+			this.first = first;
+			this.bound = bound;
+			for (int k = 0; k < floor; k++) {
+				index[k] = prefix[k];
+				values[k] = original[prefix[k]];
+				used |= 1L << prefix[k];
+			}
+		}
+
+		/**
+		 * Moves to the next derangement.
+		 * @return false if there is none.
+		 */
+		boolean advance() {
+			if (finished)
+				return false;
+			int k;
+			int candidate;
+			if (!started) {
+				started = true;
+				k = floor;
+				candidate = first;
+			} else {
+				// backtrack from the last position
+				k = n - 1;
+				if (k < floor) {
+					finished = true;
+					return false;
+				}
+				used &= ~(1L << index[k]);
+				candidate = index[k] + 1;
+			}
+			while (k < n) {
+				int limit = k == floor ? bound : n;
+				// free positions from candidate to limit - 1, without the fixed point k
+				long free = ~used & ~(1L << k) & (-1L << candidate) & ((1L << limit) - 1);
+				if (candidate < limit && free != 0) {
+					int c = Long.numberOfTrailingZeros(free);
+					index[k] = c;
+					values[k] = original[c];
+					used |= 1L << c;
+					k++;
+					candidate = 0;
+				} else if (k == floor) {
+					finished = true;
+					return false;
+				} else {
+					k--;
+					used &= ~(1L << index[k]);
+					candidate = index[k] + 1;
+				}
+			}
+			return true;
+		}
+	}
+
+	public static void main(String[] args) {
+		int from = args.length > 0 ? Integer.parseInt(args[0]) : 11;
+		int to = args.length > 1 ? Integer.parseInt(args[1]) : 14;
+		int cores = Runtime.getRuntime().availableProcessors();
+		// warm up
+		countParallel(new Permutation(10).original);
+		System.out.printf("%3s %6s %14s %10s %14s %8s%n", "n", "cores", "derangements", "ms", "per second", "speedup");
+		for (int n = from; n <= to; n++) {
+			int[] original = new Permutation(n).original;
+			double single = 0;
+			for (int p = 1; p <= cores; p = p < cores && 2 * p > cores ? cores : 2 * p) {
+				ForkJoinPool pool = new ForkJoinPool(p);
+				long start = System.nanoTime();
+				long count = forEachParallel(original, null, pool);
+				double seconds = (System.nanoTime() - start) / 1e9;
+				pool.shutdown();
+				if (p == 1)
+					single = seconds;
+				System.out.printf("%3d %6d %14d %10.1f %14.0f %8.2f%n", n, p, count, 1000 * seconds, count / seconds,
+						single / seconds);
+			}
+		}
+	}
+}
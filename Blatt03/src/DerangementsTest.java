@@ -0,0 +1,270 @@
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class DerangementsTest {
+
+    /**
+     * Collects the derangements of the backtracking of {@link Permutation}.
+     */
+    LinkedList<int[]> backtracking(int n) {
+        Permutation p = new Permutation(n);
+        p.backtracking(new LinkedList<Integer>());
+        return p.allDerangements;
+    }
+
+    List<int[]> generated(int[] original) {
+        List<int[]> derangements = new ArrayList<>();
+        Derangements.forEach(original, d -> derangements.add(d.clone()));
+        return derangements;
+    }
+
+    long subfactorial(int n) {
+        long d = 1;
+        for (int i = 1; i <= n; i++) {
+            d = i * d + (i % 2 == 0 ? 1 : -1);
+        }
+        return d;
+    }
+
+    @Test
+    void testSameOrderAsBacktracking() {
+        for (int n = 0; n <= 7; n++) {
+            LinkedList<int[]> expected = backtracking(n);
+            List<int[]> actual = generated(new Permutation(n).original);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testCountAndFixedPointFreedom() {
+        int[] original = new Permutation(9).original;
+        long[] count = new long[1];
+        Derangements.forEach(original, d -> {
+            for (int i = 0; i < d.length; i++) {
+                assertNotEquals(original[i], d[i]);
+            }
+            count[0]++;
+        });
+        assertEquals(subfactorial(9), count[0]);
+    }
+
+    @Test
+    void testBufferIsReused() {
+        Set<int[]> arrays = Collections.newSetFromMap(new IdentityHashMap<>());
+        Derangements.forEach(new Permutation(5).original, arrays::add);
+        assertEquals(1, arrays.size());
+    }
+
+    @Test
+    void testPermutationUsesGenerator() {
+        Permutation p = new Permutation(6);
+        p.derangements();
+        List<int[]> expected = backtracking(6);
+        assertEquals(expected.size(), p.allDerangements.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), p.allDerangements.get(i));
+        }
+    }
+
+    @Test
+    void testIteratorSameAsForEach() {
+        for (int n = 0; n <= 7; n++) {
+            int[] original = new Permutation(n).original;
+            List<int[]> expected = generated(original);
+            Iterator<int[]> iterator = Derangements.iterator(original, true);
+            for (int[] derangement : expected) {
+                assertTrue(iterator.hasNext());
+                assertArrayEquals(derangement, iterator.next());
+            }
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    void testIteratorReusesBufferUnlessCopied() {
+        int[] original = new Permutation(5).original;
+        Iterator<int[]> iterator = Derangements.iterator(original, false);
+        int[] first = iterator.next();
+        assertTrue(first == iterator.next());
+        iterator = Derangements.iterator(original, true);
+        assertFalse(iterator.next() == iterator.next());
+    }
+
+    @Test
+    void testSplitsCoverAllDerangements() {
+        for (int n = 0; n <= 8; n++) {
+            int[] original = new Permutation(n).original;
+            List<int[]> expected = generated(original);
+            List<Spliterator<int[]>> parts = new ArrayList<>();
+            parts.add(new DerangementSpliterator(original, true));
+            // split every part as long as possible, keeping the order of the parts
+            for (int i = 0; i < parts.size(); ) {
+                Spliterator<int[]> lower = parts.get(i).trySplit();
+                if (lower == null) {
+                    i++;
+                } else {
+                    parts.add(i, lower);
+                }
+            }
+            List<int[]> actual = new ArrayList<>();
+            for (Spliterator<int[]> part : parts) {
+                part.forEachRemaining(actual::add);
+            }
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testSplitAfterStart() {
+        int[] original = new Permutation(6).original;
+        List<int[]> expected = generated(original);
+        Spliterator<int[]> spliterator = new DerangementSpliterator(original, true);
+        List<int[]> actual = new ArrayList<>();
+        spliterator.tryAdvance(actual::add);
+        Spliterator<int[]> lower = spliterator.trySplit();
+        assertNotNull(lower);
+        lower.forEachRemaining(actual::add);
+        spliterator.forEachRemaining(actual::add);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void testParallelStream() {
+        Permutation p = new Permutation(9);
+        assertEquals(subfactorial(9), p.derangementStream(true).count());
+        List<int[]> expected = generated(new Permutation(8).original);
+        List<int[]> actual = new Permutation(8).derangementStream(true).collect(java.util.stream.Collectors.toList());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void testCountParallel() {
+        for (int n = 0; n <= 10; n++) {
+            assertEquals(subfactorial(n), Derangements.countParallel(new Permutation(n).original));
+        }
+    }
+
+    @Test
+    void testShardedConsumers() {
+        int[] original = new Permutation(8).original;
+        List<List<int[]>> shards = Collections.synchronizedList(new ArrayList<>());
+        long count = Derangements.forEachParallel(original, () -> {
+            List<int[]> shard = new ArrayList<>();
+            shards.add(shard);
+            return d -> shard.add(d.clone());
+        }, new java.util.concurrent.ForkJoinPool(3));
+        Set<List<Integer>> actual = new HashSet<>();
+        for (List<int[]> shard : shards) {
+            for (int[] derangement : shard) {
+                assertTrue(actual.add(PermutationTest.convertArrayToList(derangement)));
+            }
+        }
+        Set<List<Integer>> expected = new HashSet<>();
+        for (int[] derangement : generated(original)) {
+            expected.add(PermutationTest.convertArrayToList(derangement));
+        }
+        assertEquals(expected.size(), count);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testCount() {
+        for (int n = 0; n <= Derangements.MAX_RANK_LENGTH; n++) {
+            assertEquals(subfactorial(n), Derangements.count(n));
+            assertEquals(java.math.BigInteger.valueOf(subfactorial(n)), Derangements.countExact(n));
+        }
+        assertThrows(ArithmeticException.class, () -> Derangements.count(Derangements.MAX_RANK_LENGTH + 1));
+        // D(n) = n D(n - 1) + (-1)^n
+        java.math.BigInteger d = Derangements.countExact(39);
+        assertEquals(d.multiply(java.math.BigInteger.valueOf(40)).add(java.math.BigInteger.ONE),
+                Derangements.countExact(40));
+    }
+
+    @Test
+    void testRankAndUnrank() {
+        for (int n = 0; n <= 8; n++) {
+            Permutation p = new Permutation(n);
+            List<int[]> derangements = generated(p.original);
+            assertEquals(derangements.size(), p.countDerangements());
+            for (int i = 0; i < derangements.size(); i++) {
+                assertArrayEquals(derangements.get(i), p.derangement(i));
+                assertEquals(i, p.rank(derangements.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void testUnrankLarge() {
+        int[] original = new Permutation(Derangements.MAX_RANK_LENGTH).original;
+        long last = Derangements.count(original.length) - 1;
+        for (long rank : new long[]{0, 1, 123456789, last / 3, last}) {
+            assertEquals(rank, Derangements.rank(original, Derangements.unrank(original, rank)));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> Derangements.unrank(original, last + 1));
+        assertThrows(IllegalArgumentException.class, () -> Derangements.rank(new Permutation(3).original,
+                new Permutation(3).original));
+    }
+
+    @Test
+    void testSampleIsUniform() {
+        Permutation p = new Permutation(4);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] frequency = new int[(int) p.countDerangements()];
+        for (int i = 0; i < 90000; i++) {
+            frequency[(int) p.rank(p.randomDerangement(random))]++;
+        }
+        for (int f : frequency) {
+            assertTrue(Math.abs(f - 10000) < 500, "frequency " + f);
+        }
+    }
+
+    @Test
+    void testSampleBulk() {
+        int[] original = new Permutation(12).original;
+        int[][] first = new int[1000][original.length];
+        int[][] second = new int[1000][original.length];
+        Derangements.sample(original, 42, first);
+        Derangements.sample(original, 42, second);
+        assertArrayEquals(first, second);
+        for (int[] derangement : first) {
+            assertTrue(checkDerangement(original, derangement));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Derangements.sample(new int[1], new SplittableRandom()));
+        assertEquals(0, Derangements.sample(new int[0], new SplittableRandom()).length);
+    }
+
+    boolean checkDerangement(int[] original, int[] derangement) {
+        int[] sorted = derangement.clone();
+        Arrays.sort(sorted);
+        int[] values = original.clone();
+        Arrays.sort(values);
+        if (!Arrays.equals(sorted, values))
+            return false;
+        for (int i = 0; i < original.length; i++) {
+            if (original[i] == derangement[i])
+                return false;
+        }
+        return true;
+    }
+
+    @Test
+    void testTooLong() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Derangements.forEach(new int[Derangements.MAX_LENGTH + 1], d -> { }));
+    }
+}
@@ -21,7 +21,8 @@ public class Permutation extends PermutationVariation{
 	}
 	
     public void derangements() {
-        backtracking(new LinkedList<Integer>());
+        // same order as backtracking, but without searching the list for every candidate
+        Derangements.forEach(this.original, d -> this.allDerangements.add(d.clone()));
     }
 
     public void backtracking(LinkedList<Integer> candidate) {
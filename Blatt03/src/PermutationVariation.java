@@ -1,5 +1,8 @@
 import java.util.LinkedList;
 import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Superclass to a few Permutation classes, which calculate the derangement of a permutation.
@@ -29,6 +32,62 @@ public abstract class PermutationVariation {
 	 * Calls the backtracking with an empty list.
 	 */
 	public abstract void derangements();
+
+	/**
+	 * Passes every derangement of original to the consumer, without storing them in allDerangements.
+	 * The consumer always gets the same array (@see Derangements#forEach(int[], Consumer)).
+	 * @param action consumer of the derangements.
+	 */
+	public void forEachDerangement(Consumer<int[]> action) {
+		Derangements.forEach(this.original, action);
+	}
+
+	/**
+	 * Returns the derangements of original as a stream, which computes them on demand
+	 * instead of storing them in allDerangements. Every derangement is a new array.
+	 * @param parallel whether the stream is parallel.
+	 * @return stream of the derangements.
+	 */
+	public Stream<int[]> derangementStream(boolean parallel) {
+		return Derangements.stream(this.original, true, parallel);
+	}
+
+	/**
+	 * Counts the derangements of original without computing them.
+	 * @return number of derangements.
+	 */
+	public long countDerangements() {
+		return Derangements.count(this.original.length);
+	}
+
+	/**
+	 * Computes the derangement of original at the given position of allDerangements after derangements(),
+	 * without computing the ones before it (@see Derangements#unrank(int[], long)).
+	 * @param rank position of the derangement.
+	 * @return the derangement.
+	 */
+	public int[] derangement(long rank) {
+		return Derangements.unrank(this.original, rank);
+	}
+
+	/**
+	 * Computes the position of a derangement of original in allDerangements after derangements()
+	 * (@see Derangements#rank(int[], int[])).
+	 * @param derangement a derangement of original.
+	 * @return position of the derangement.
+	 */
+	public long rank(int[] derangement) {
+		return Derangements.rank(this.original, derangement);
+	}
+
+	/**
+	 * Draws a derangement of original uniformly at random, without computing all of them.
+	 * @param random random generator.
+	 * @return the derangement.
+	 */
+	public int[] randomDerangement(SplittableRandom random) {
+		return Derangements.sample(this.original, random);
+	}
 	
 
     @Override